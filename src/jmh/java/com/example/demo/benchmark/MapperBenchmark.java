@@ -0,0 +1,54 @@
+package com.example.demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.domain.Todo;
+import com.example.demo.domain.User;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.UserResponseBody;
+import com.example.demo.service.TodoMapper;
+import com.example.demo.service.UserMapper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final TodoMapper todoMapper = new TodoMapper();
+    private final UserMapper userMapper = new UserMapper();
+
+    private User user;
+    private Todo todo;
+
+    @Setup
+    public void setUp() {
+        user = new User("William Lemos", "will@mail.com", "1234");
+        user.setId(1L);
+        todo = new Todo("Change Password", "Change runescape password due the yesterday problem!", user);
+        todo.setId(1L);
+    }
+
+    @Benchmark
+    public TodoResponseBody toTodoResponseBody() {
+        return todoMapper.toTodoResponseBody(todo);
+    }
+
+    @Benchmark
+    public UserResponseBody toUserResponseBody() {
+        return userMapper.toUserResponseBody(user);
+    }
+}
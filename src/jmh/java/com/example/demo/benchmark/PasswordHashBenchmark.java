@@ -0,0 +1,69 @@
+package com.example.demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.example.demo.service.PasswordHasher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Cost of one BCrypt hash per strength, alone and with more callers than
+ * hashing threads. Run it on the production hardware and take the highest
+ * strength whose p99 in {@code pooled} stays within the signup latency
+ * target; each step up doubles the cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({ "8", "10", "12", "14" })
+    private int strength;
+
+    @Param({ "0" })
+    private int hashThreads;
+
+    private BCryptPasswordEncoder encoder;
+    private PasswordHasher passwordHasher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        passwordHasher = new PasswordHasher(new SimpleMeterRegistry(), strength, hashThreads, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHasher.destroy();
+    }
+
+    @Benchmark
+    public String single() {
+        return encoder.encode("correct horse battery staple");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String pooled() {
+        return passwordHasher.hash("correct horse battery staple");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.demo.domain.TodoStage;
+import com.example.demo.dto.PageResponseBody;
+import com.example.demo.dto.TodoResponseBody;
+
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Encodes and decodes a todo page in each format the controllers negotiate.
+ * The encoded size of every page is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<PageResponseBody<TodoResponseBody>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    @Param({ "10", "100", "1000" })
+    private int pageSize;
+
+    @Param({ "json", "cbor", "smile" })
+    private String format;
+
+    private ObjectMapper mapper;
+
+    private PageResponseBody<TodoResponseBody> page;
+
+    private byte[] encodedPage;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+
+        List<TodoResponseBody> content = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> new TodoResponseBody(id, "Todo " + id, "Description of todo " + id,
+                        TodoStage.values()[(int) (id % TodoStage.values().length)], id % 10, 0L))
+                .toList();
+        page = new PageResponseBody<>(content, 0, pageSize, 10_000, 10_000 / pageSize);
+        encodedPage = mapper.writeValueAsBytes(page);
+        System.out.printf("%n%s page of %d todos: %,d bytes%n", format, pageSize, encodedPage.length);
+    }
+
+    @Benchmark
+    public byte[] serializePage() {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageResponseBody<TodoResponseBody> deserializePage() {
+        return mapper.readValue(encodedPage, PAGE_TYPE);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time from starting the packaged application to its first successful
+ * request, which includes the first database round trip, per startup mode.
+ * Build the artifacts with {@code ./mvnw -Pfast-startup -DskipTests package}
+ * (and {@code ./mvnw -Pnative native:compile} for {@code native}), start
+ * MySQL with {@code docker compose up -d} and run
+ * {@code ./mvnw -Pbenchmark -DskipTests verify -Djmh.includes=StartupBenchmark}.
+ * A mode whose artifact has not been built fails its trial; the other modes
+ * still run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final Path TARGET = Path.of("target");
+    private static final Path APP = TARGET.resolve("app");
+
+    @Param({ "jar", "extracted", "cds", "aot+cds", "native" })
+    private String mode;
+
+    @Param({ "prod" })
+    private String profiles;
+
+    /**
+     * Overrides the datasource URL of the active profiles unless blank.
+     */
+    @Param({ "" })
+    private String datasourceUrl;
+
+    private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private List<String> command;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path extracted = APP.resolve("demo.jar");
+        Path archive = APP.resolve("demo.jsa");
+        Path nativeImage = TARGET.resolve("demo");
+
+        command = switch (mode) {
+            case "jar" -> List.of(java, "-jar", String.valueOf(built(packagedJar())));
+            case "extracted" -> List.of(java, "-jar", built(extracted).toString());
+            case "cds" -> List.of(java, "-XX:SharedArchiveFile=" + built(archive), "-jar", extracted.toString());
+            case "aot+cds" -> List.of(java, "-XX:SharedArchiveFile=" + built(archive), "-Dspring.aot.enabled=true",
+                    "-jar", extracted.toString());
+            case "native" -> List.of(built(nativeImage).toString());
+            default -> throw new IllegalArgumentException("Unknown mode " + mode);
+        };
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        int port = freePort();
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        arguments.add("--spring.profiles.active=" + profiles);
+        arguments.add("--app.search.index-dir=");
+        if (!datasourceUrl.isBlank()) {
+            arguments.add("--spring.datasource.url=" + datasourceUrl);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users?size=1"))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(mode + " exited with status " + process.exitValue());
+            }
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    return status;
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        throw new IllegalStateException(mode + " did not answer within " + TIMEOUT);
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+            process = null;
+        }
+    }
+
+    private Path built(Path artifact) {
+        if (artifact == null || !Files.exists(artifact)) {
+            throw new IllegalStateException(mode + " needs " + (artifact == null ? "the packaged jar" : artifact)
+                    + ", which has not been built");
+        }
+        return artifact;
+    }
+
+    private static Path packagedJar() throws IOException {
+        try (Stream<Path> files = Files.list(TARGET)) {
+            return files.filter(file -> file.getFileName().toString().matches("demo-.*\\.jar"))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.domain.User;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TodoService;
+
+/**
+ * Time per inserted todo for one-by-one {@link TodoService#save} calls and
+ * for {@link TodoService#saveAll} batches, against an embedded H2 database
+ * unless {@code datasourceUrl} points at MySQL, where the saved round trips
+ * actually matter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(TodoBatchInsertBenchmark.BATCH_SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoBatchInsertBenchmark {
+    static final int BATCH_SIZE = 500;
+
+    /**
+     * Overrides the embedded H2 database unless blank.
+     */
+    @Param({ "" })
+    private String datasourceUrl;
+
+    private ConfigurableApplicationContext context;
+    private TodoService todoService;
+    private TodoRepository todoRepository;
+    private List<TodoPostRequestBody> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = datasourceUrl.isBlank() ? "jdbc:h2:mem:jmh-batch;DB_CLOSE_ON_EXIT=FALSE" : datasourceUrl;
+        // The controllers need the MVC infrastructure, so this is a web context.
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--app.search.index-dir=",
+                        "--logging.level.root=WARN");
+        todoService = context.getBean(TodoService.class);
+        todoRepository = context.getBean(TodoRepository.class);
+
+        User user = context.getBean(UserRepository.class).save(new User("Benchmark", "benchmark@mail.com", "1234"));
+        requests = IntStream.range(0, BATCH_SIZE)
+                .mapToObj(i -> new TodoPostRequestBody(user.getId(), "Todo " + i, "Benchmark todo " + i))
+                .toList();
+    }
+
+    /**
+     * Keeps the table from growing across iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteTodos() {
+        todoRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void single() {
+        requests.forEach(todoService::save);
+    }
+
+    @Benchmark
+    public void batched() {
+        todoService.saveAll(requests);
+    }
+}
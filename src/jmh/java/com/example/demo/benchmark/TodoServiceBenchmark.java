@@ -0,0 +1,94 @@
+package com.example.demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.domain.User;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TodoService;
+
+/**
+ * {@link TodoService} hot paths against an embedded H2 database, with and
+ * without the response cache in front of {@code find}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoServiceBenchmark {
+    private static final int TODOS = 10_000;
+
+    @Param({ "caffeine", "none" })
+    private String cache;
+
+    private ConfigurableApplicationContext context;
+    private TodoService todoService;
+    private TodoPostRequestBody todoRequest;
+    private Pageable firstPage;
+    private Long todoId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The controllers need the MVC infrastructure, so this is a web context.
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:jmh-" + cache + ";DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.cache.type=" + cache,
+                        "--app.search.index-dir=",
+                        "--logging.level.root=WARN");
+        todoService = context.getBean(TodoService.class);
+
+        User user = context.getBean(UserRepository.class).save(new User("Benchmark", "benchmark@mail.com", "1234"));
+        todoRequest = new TodoPostRequestBody(user.getId(), "Benchmark", "Benchmark todo");
+        todoService.saveAll(IntStream.range(0, TODOS).mapToObj(i -> todoRequest).toList());
+
+        firstPage = PageRequest.of(0, 20);
+        todoId = todoService.list(firstPage).getContent().get(0).id();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<TodoResponseBody> list() {
+        return todoService.list(firstPage);
+    }
+
+    @Benchmark
+    public TodoResponseBody find() {
+        return todoService.find(todoId);
+    }
+
+    @Benchmark
+    public TodoResponseBody save() {
+        return todoService.save(todoRequest);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.domain.User;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TodoService;
+
+/**
+ * Latency of {@code GET /todos/{id}} under concurrent load, with the server
+ * handling requests on platform and on virtual threads. Virtual threads need
+ * a Java 21 JDK and a {@code -Pjava21} build; on Java 17 both runs use
+ * platform threads. H2 answers without blocking, so set
+ * {@code datasourceUrl} to a MySQL database to see the difference blocked
+ * JDBC calls make. Raise the client count with JMH's {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(200)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+
+    @Param({ "platform", "virtual" })
+    private String threads;
+
+    /**
+     * Overrides the embedded H2 database unless blank.
+     */
+    @Param({ "" })
+    private String datasourceUrl;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = datasourceUrl.isBlank() ? "jdbc:h2:mem:jmh-" + threads + ";DB_CLOSE_ON_EXIT=FALSE"
+                : datasourceUrl;
+        context = new SpringApplicationBuilder(DemoApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                "--spring.datasource.hikari.maximum-pool-size=20",
+                "--app.datasource.max-concurrency=20",
+                "--app.search.index-dir=",
+                "--app.rate-limit.enabled=false",
+                "--logging.level.root=WARN");
+
+        User user = context.getBean(UserRepository.class)
+                .save(new User("Benchmark", "benchmark-" + System.nanoTime() + "@mail.com", "1234"));
+        Long todoId = context.getBean(TodoService.class)
+                .save(new TodoPostRequestBody(user.getId(), "Benchmark", "Benchmark todo")).id();
+        String port = context.getBean(Environment.class).getProperty("local.server.port");
+
+        client = HttpClient.newHttpClient();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/todos/" + todoId)).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getTodo() throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET " + request.uri() + " returned " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.demo.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the V2 migration's sequence seeding on every start when Hibernate
+ * manages the schema with {@code ddl-auto=update} instead of Flyway. Existing
+ * databases created before User and Todo moved to pooled sequences get their
+ * {@code *_seq} tables at {@code next_val = 1}, and every insert would collide
+ * with an existing id until the sequence passed them. The update only ever
+ * raises {@code next_val}, so it is safe with other instances running.
+ * <p>
+ * Dialects with native sequences, such as H2 in the tests, have no sequence
+ * tables and are left alone.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "spring.jpa.hibernate.ddl-auto", havingValue = "update")
+public class IdSequenceSeeder implements InitializingBean {
+
+    private static final String SCRIPT = "db/migration/V2__seed_id_sequences.sql";
+
+    private static final List<String> SEQUENCE_TABLES = List.of("users_seq", "todos_seq");
+
+    private final DataSource dataSource;
+
+    public IdSequenceSeeder(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        if (hasSequenceTables()) {
+            new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)).execute(dataSource);
+        }
+    }
+
+    private boolean hasSequenceTables() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String table : SEQUENCE_TABLES) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, table,
+                        new String[] { "TABLE" })) {
+                    if (!tables.next()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
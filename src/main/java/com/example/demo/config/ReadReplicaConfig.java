@@ -0,0 +1,144 @@
+package com.example.demo.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.boot.transaction.autoconfigure.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.demo.ratelimit.ClientIdentity;
+import com.example.demo.ratelimit.RateLimitProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends read-only transactions to the replicas and everything else to the
+ * primary. The connection is only fetched once the transaction is known to
+ * be read-only, so the choice is made by {@link LazyConnectionDataSourceProxy}
+ * rather than by whoever asks for the connection first. Replica reads never
+ * fill the shared caches; see {@link ReplicaAwareTransactionManager}.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReadReplicaConfig(ReadReplicaProperties properties, RateLimitProperties rateLimitProperties) {
+        this.readYourWrites = new ReadYourWrites(properties.readYourWrites(), properties.readYourWritesWindow(),
+                new ClientIdentity(rateLimitProperties));
+    }
+
+    @Bean
+    ReadReplicaPools readReplicaPools(DataSourceProperties primaryProperties, ReadReplicaProperties properties,
+            Environment environment, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        configure(primary, "primary", binder, meterRegistry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (ReadReplicaProperties.Replica replica : properties.replicas()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(primaryProperties.determineDriverClassName())
+                    .url(replica.url())
+                    .username(replica.username())
+                    .password(replica.password())
+                    .build();
+            configure(pool, "replica-" + replicas.size(), binder, meterRegistry);
+            replicas.add(pool);
+        }
+        return new ReadReplicaPools(primary, List.copyOf(replicas));
+    }
+
+    @Bean
+    DataSource dataSource(ReadReplicaPools pools) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new WriteTrackingDataSource(pools.primary(), readYourWrites));
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(pools.primary(), pools.replicas(), readYourWrites));
+        return dataSource;
+    }
+
+    /**
+     * Under open-in-view the session outlives each transaction. By default it
+     * would hold on to the connection its first transaction was routed to, so
+     * a request that reads a replica first would keep using it for everything
+     * after. Releasing the connection at the end of each transaction routes
+     * each transaction on its own.
+     */
+    @Bean
+    HibernatePropertiesCustomizer connectionPerTransactionCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new ReplicaAwareTransactionManager(readYourWrites);
+        customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(readYourWrites);
+    }
+
+    private static void configure(HikariDataSource pool, String name, Binder binder, MeterRegistry meterRegistry) {
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    }
+
+    private static final class WriteTrackingDataSource extends DelegatingDataSource {
+
+        private final ReadYourWrites readYourWrites;
+
+        WriteTrackingDataSource(DataSource primary, ReadYourWrites readYourWrites) {
+            super(primary);
+            this.readYourWrites = readYourWrites;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            readYourWrites.recordWrite();
+            return super.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            readYourWrites.recordWrite();
+            return super.getConnection(username, password);
+        }
+    }
+}
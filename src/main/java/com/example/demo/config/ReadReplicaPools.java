@@ -0,0 +1,21 @@
+package com.example.demo.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Owns the primary and replica pools behind the routing {@code DataSource}.
+ * They are not beans themselves, so nothing else injects or wraps them by
+ * mistake.
+ */
+public record ReadReplicaPools(HikariDataSource primary, List<HikariDataSource> replicas) implements DisposableBean {
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
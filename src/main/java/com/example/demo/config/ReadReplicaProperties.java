@@ -0,0 +1,30 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Replica pools for read-only transactions. Each replica shares the primary's
+ * {@code spring.datasource.hikari.*} pool settings and driver.
+ *
+ * @param readYourWrites which reads stay on the primary after a write
+ * @param readYourWritesWindow how long a client stays on the primary after its
+ *        last write in {@link ReadYourWrites.Scope#CLIENT} scope; should exceed
+ *        the usual replication lag
+ */
+@ConfigurationProperties("app.datasource")
+public record ReadReplicaProperties(
+        List<Replica> replicas,
+        @DefaultValue("client") ReadYourWrites.Scope readYourWrites,
+        @DefaultValue("PT5S") Duration readYourWritesWindow) {
+
+    public ReadReplicaProperties {
+        replicas = replicas == null ? List.of() : replicas;
+    }
+
+    public record Replica(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.example.demo.ratelimit.ClientIdentity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps reads on the primary after a write, so a client never reads its own
+ * write back from a replica that has not caught up. A write is any connection
+ * taken from the primary while handling the client's request.
+ * <p>
+ * Read-only transactions labelled {@link #PRIMARY} always read the primary.
+ * Loads that fill a cache shared by all clients use it, because a lagging
+ * replica's row would otherwise be cached and served to the writer too.
+ * <p>
+ * The request's state lives on the thread handling it, so it is dropped when
+ * the request goes async as well as when it completes: the container thread
+ * goes back to the pool without {@code afterCompletion} being called on it.
+ */
+public class ReadYourWrites implements AsyncHandlerInterceptor {
+
+    /**
+     * Transaction label for read-only transactions that must read the
+     * primary.
+     */
+    public static final String PRIMARY = "primary";
+
+    private static final int MAX_RECENT_WRITERS = 100_000;
+
+    public enum Scope {
+        /** Every read-only transaction may go to a replica. */
+        NONE,
+        /** Reads later in the request that wrote stay on the primary. */
+        REQUEST,
+        /** As {@code REQUEST}, and the client's next requests within the window too. */
+        CLIENT
+    }
+
+    private final ThreadLocal<RequestState> current = new ThreadLocal<>();
+    private final ThreadLocal<Deque<Boolean>> primaryTransactions = new ThreadLocal<>();
+    private final Scope scope;
+    private final ClientIdentity clientIdentity;
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Scope scope, Duration window, ClientIdentity clientIdentity) {
+        this.scope = scope;
+        this.clientIdentity = clientIdentity;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(MAX_RECENT_WRITERS)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (scope != Scope.NONE) {
+            current.set(new RequestState(clientIdentity.of(request)));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        current.remove();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        current.remove();
+    }
+
+    void recordWrite() {
+        RequestState state = current.get();
+        if (state == null) {
+            return;
+        }
+        state.wrote = true;
+        if (scope == Scope.CLIENT) {
+            recentWriters.put(state.client, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Called as each transaction begins; transactions nest on the thread
+     * when an outer one is suspended.
+     */
+    void beginTransaction(boolean primary) {
+        Deque<Boolean> transactions = primaryTransactions.get();
+        if (transactions == null) {
+            transactions = new ArrayDeque<>();
+            primaryTransactions.set(transactions);
+        }
+        transactions.push(primary);
+    }
+
+    void endTransaction() {
+        Deque<Boolean> transactions = primaryTransactions.get();
+        if (transactions != null) {
+            transactions.poll();
+            if (transactions.isEmpty()) {
+                primaryTransactions.remove();
+            }
+        }
+    }
+
+    boolean isPinnedToPrimary() {
+        Deque<Boolean> transactions = primaryTransactions.get();
+        if (transactions != null && Boolean.TRUE.equals(transactions.peek())) {
+            return true;
+        }
+
+        RequestState state = current.get();
+        if (state == null) {
+            return false;
+        }
+        return state.wrote || scope == Scope.CLIENT && recentWriters.getIfPresent(state.client) != null;
+    }
+
+    private static final class RequestState {
+
+        private final String client;
+        private boolean wrote;
+
+        RequestState(String client) {
+            this.client = client;
+        }
+    }
+}
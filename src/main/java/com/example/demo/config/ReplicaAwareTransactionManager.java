@@ -0,0 +1,70 @@
+package com.example.demo.config;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tells {@link ReadYourWrites} which transactions must read the primary,
+ * marks the connection of every read-only transaction read-only so
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * routes it, and runs read-only transactions that may go to a replica with
+ * {@link CacheMode#GET}: they read the second-level cache but never put what
+ * they loaded into it, so a lagging replica's rows are not served from the
+ * cache to clients that read the primary.
+ */
+class ReplicaAwareTransactionManager extends JpaTransactionManager {
+
+    private final ReadYourWrites readYourWrites;
+    private final ThreadLocal<Deque<CacheModeRestore>> restores = ThreadLocal.withInitial(ArrayDeque::new);
+
+    ReplicaAwareTransactionManager(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        readYourWrites.beginTransaction(definition instanceof TransactionAttribute attribute
+                && attribute.getLabels().contains(ReadYourWrites.PRIMARY));
+
+        CacheModeRestore restore = new CacheModeRestore(null, null);
+        if (definition.isReadOnly()) {
+            EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager
+                    .getResource(obtainEntityManagerFactory());
+            Session session = holder.getEntityManager().unwrap(Session.class);
+            // The connection is released after each transaction, so the dialect
+            // leaves it alone; marking the lazy proxy routes it to the replicas.
+            session.doWork(connection -> connection.setReadOnly(true));
+            if (!readYourWrites.isPinnedToPrimary()) {
+                restore = new CacheModeRestore(session, session.getCacheMode());
+                session.setCacheMode(CacheMode.GET);
+            }
+        }
+        restores.get().push(restore);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        CacheModeRestore restore = restores.get().poll();
+        if (restore != null && restore.session() != null && restore.session().isOpen()) {
+            restore.session().setCacheMode(restore.cacheMode());
+        }
+        readYourWrites.endTransaction();
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    /**
+     * The cache mode to put back once the transaction ends, for sessions that
+     * outlive it under open-in-view.
+     */
+    private record CacheModeRestore(Session session, CacheMode cacheMode) {
+    }
+}
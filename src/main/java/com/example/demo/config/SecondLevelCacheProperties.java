@@ -0,0 +1,27 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Hibernate second-level cache regions. Every region Hibernate uses must be
+ * listed, including {@code default-query-results-region} and
+ * {@code default-update-timestamps-region}, so none of them is created
+ * unbounded by default.
+ */
+@ConfigurationProperties("app.hibernate.cache")
+public record SecondLevelCacheProperties(Map<String, Region> regions) {
+
+    public SecondLevelCacheProperties {
+        regions = regions == null ? Map.of() : regions;
+    }
+
+    /**
+     * @param timeToLive how long an entry lives after it was written; entries
+     *        never expire when unset
+     */
+    public record Region(long maximumSize, Duration timeToLive) {
+    }
+}
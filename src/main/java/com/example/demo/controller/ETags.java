@@ -0,0 +1,72 @@
+package com.example.demo.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Strong entity tags derived from the JPA {@code @Version} column and the
+ * format the body is written in, such as {@code "3-cbor"}. JSON, CBOR and
+ * Smile bodies of one version differ byte for byte, so each gets its own tag.
+ */
+final class ETags {
+
+    private static final String ANY = "*";
+
+    private static final List<Format> FORMATS = List.of(
+            new Format(MediaType.APPLICATION_JSON, "json"),
+            new Format(MediaType.APPLICATION_CBOR, "cbor"),
+            new Format(MediaType.parseMediaType("application/x-jackson-smile"), "smile"));
+
+    private ETags() {
+    }
+
+    /**
+     * @param accepted the request's acceptable media types, most preferred
+     *                 first, which pick the body format the same way content
+     *                 negotiation does
+     */
+    static String of(Long version, List<MediaType> accepted) {
+        return "\"" + version + "-" + format(accepted) + "\"";
+    }
+
+    /**
+     * Returns the version an {@code If-Match} header requires, or {@code null}
+     * when the header is absent or matches any current representation. A tag
+     * of any format matches its version; weak tags never match.
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Invalid If-Match");
+        }
+
+        String opaque = tag.substring(1, tag.length() - 1);
+        int separator = opaque.indexOf('-');
+        try {
+            return Long.valueOf(separator < 0 ? opaque : opaque.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Invalid If-Match");
+        }
+    }
+
+    private static String format(List<MediaType> accepted) {
+        for (MediaType mediaType : accepted) {
+            for (Format format : FORMATS) {
+                if (mediaType.isCompatibleWith(format.mediaType())) {
+                    return format.name();
+                }
+            }
+        }
+        return FORMATS.get(0).name();
+    }
+
+    private record Format(MediaType mediaType, String name) {
+    }
+}
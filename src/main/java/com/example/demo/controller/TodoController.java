@@ -1,36 +1,104 @@
 package com.example.demo.controller;
 
+import java.net.URI;
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.domain.TodoStage;
+import com.example.demo.dto.CursorPageResponseBody;
 import com.example.demo.dto.PageResponseBody;
+import com.example.demo.dto.SliceResponseBody;
+import com.example.demo.dto.TodoBatchDeleteRequestBody;
+import com.example.demo.dto.TodoBatchPostRequestBody;
+import com.example.demo.dto.TodoBatchPutRequestBody;
+import com.example.demo.dto.TodoIngestResponseBody;
+import com.example.demo.dto.TodoPatchRequestBody;
 import com.example.demo.dto.TodoPostRequestBody;
 import com.example.demo.dto.TodoPutRequestBody;
 import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStagePatchRequestBody;
+import com.example.demo.service.TodoExportService;
+import com.example.demo.service.TodoIngestQueue;
 import com.example.demo.service.TodoService;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 
 @RestController
+@Timed(value = "app.controller", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 @RequiredArgsConstructor
 @RequestMapping("/todos")
 public class TodoController {
 
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private final TodoService todoServices;
+    private final TodoExportService todoExportService;
+    private final TodoIngestQueue todoIngestQueue;
+    private final ContentNegotiationManager contentNegotiationManager;
 
     @GetMapping
-    public ResponseEntity<PageResponseBody<TodoResponseBody>> getAll(Pageable pageable) {
-        Page<TodoResponseBody> page = todoServices.list(pageable);
+    public ResponseEntity<PageResponseBody<TodoResponseBody>> getAll(
+            @RequestParam(required = false) List<TodoStage> stage,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String title,
+            Pageable pageable) {
+        Page<TodoResponseBody> page = todoServices.list(stage, userId, title, pageable);
+        return ResponseEntity.ok(new PageResponseBody<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages()));
+    }
+
+    @GetMapping(params = { "count=none", "!after" })
+    public ResponseEntity<SliceResponseBody<TodoResponseBody>> getAllSlice(
+            @RequestParam(required = false) List<TodoStage> stage,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String title,
+            Pageable pageable) {
+        Slice<TodoResponseBody> slice = todoServices.listSlice(stage, userId, title, pageable);
+        return ResponseEntity.ok(new SliceResponseBody<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getSize(),
+                slice.hasNext()));
+    }
+
+    @GetMapping(params = { "count=estimated", "!after" })
+    public ResponseEntity<PageResponseBody<TodoResponseBody>> getAllWithEstimatedTotal(
+            @RequestParam(required = false) List<TodoStage> stage,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String title,
+            Pageable pageable) {
+        Page<TodoResponseBody> page = todoServices.listWithEstimatedTotal(stage, userId, title, pageable);
         return ResponseEntity.ok(new PageResponseBody<>(
                 page.getContent(),
                 page.getNumber(),
@@ -39,9 +107,54 @@ public class TodoController {
                 page.getTotalPages()));
     }
 
+    /**
+     * Cursor pages never count, so a {@code count} parameter is ignored.
+     */
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResponseBody<TodoResponseBody>> getAllAfter(@RequestParam String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            @RequestParam(required = false) List<TodoStage> stage,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String title) {
+        return ResponseEntity.ok(todoServices.listAfter(after, size, stage, userId, title));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PageResponseBody<TodoResponseBody>> search(@RequestParam Long userId,
+            @RequestParam("q") @NotBlank String text, Pageable pageable) {
+        Page<TodoResponseBody> page = todoServices.search(userId, text, pageable);
+        return ResponseEntity.ok(new PageResponseBody<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages()));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTodos() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(todoExportService::writeAllTodos);
+    }
+
+    /**
+     * Only conditional requests look the version up first; otherwise the
+     * tag comes from the body, which is usually served from the cache.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<TodoResponseBody> getTodoById(@PathVariable Long id) {
-        return ResponseEntity.ok(todoServices.find(id));
+    public ResponseEntity<TodoResponseBody> getTodoById(@PathVariable Long id, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted = contentNegotiationManager.resolveMediaTypes(request);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = ETags.of(todoServices.findVersion(id), accepted);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+        }
+
+        TodoResponseBody todo = todoServices.find(id);
+        return ResponseEntity.ok().eTag(ETags.of(todo.version(), accepted)).body(todo);
     }
 
     @PostMapping()
@@ -49,10 +162,54 @@ public class TodoController {
         return ResponseEntity.status(201).body(todoServices.save(todo));
     }
 
+    /**
+     * Queues the todo when the {@code Prefer} header (RFC 7240) asks for
+     * {@code respond-async}, whatever other preferences come with it, and
+     * creates it straight away otherwise.
+     */
+    @PostMapping(headers = "Prefer")
+    public ResponseEntity<?> createTodoWithPreferences(@RequestHeader("Prefer") List<String> preferences,
+            @Valid @RequestBody TodoPostRequestBody todo) {
+        if (preferences.stream().noneMatch(TodoController::isRespondAsync)) {
+            return createTodo(todo);
+        }
+
+        TodoIngestResponseBody status = todoIngestQueue.submit(todo);
+        return ResponseEntity.accepted()
+                .location(URI.create("/todos/ingest/" + status.trackingId()))
+                .header("Preference-Applied", RESPOND_ASYNC)
+                .body(status);
+    }
+
+    @GetMapping("/ingest/{trackingId}")
+    public ResponseEntity<TodoIngestResponseBody> getIngestStatus(@PathVariable String trackingId) {
+        return ResponseEntity.ok(todoIngestQueue.status(trackingId));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<TodoResponseBody> updateTodo(@PathVariable Long id,
-            @Valid @RequestBody TodoPutRequestBody updatedTodo) {
-        return ResponseEntity.ok(todoServices.update(id, updatedTodo));
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody TodoPutRequestBody updatedTodo, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted = contentNegotiationManager.resolveMediaTypes(request);
+        TodoResponseBody todo = todoServices.update(id, updatedTodo, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(todo.version(), accepted)).body(todo);
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<Void> patchTodo(@PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody TodoPatchRequestBody todo) {
+        todoServices.patch(id, todo, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().build();
+    }
+
+    @PatchMapping("/{id}/stage")
+    public ResponseEntity<Void> updateTodoStage(@PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody TodoStagePatchRequestBody todo) {
+        todoServices.updateStage(id, todo.stage(), ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/{id}")
@@ -60,4 +217,25 @@ public class TodoController {
         todoServices.remove(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<TodoResponseBody>> createTodos(@Valid @RequestBody TodoBatchPostRequestBody todos) {
+        return ResponseEntity.status(201).body(todoServices.saveAll(todos.todos()));
+    }
+
+    @PatchMapping("/batch")
+    public ResponseEntity<List<TodoResponseBody>> updateTodos(@Valid @RequestBody TodoBatchPutRequestBody todos) {
+        return ResponseEntity.ok(todoServices.updateAll(todos.todos()));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<Void> deleteTodos(@Valid @RequestBody TodoBatchDeleteRequestBody todos) {
+        todoServices.removeAll(todos.ids());
+        return ResponseEntity.noContent().build();
+    }
+
+    private static boolean isRespondAsync(String preference) {
+        String token = preference.split(";", 2)[0].split("=", 2)[0].trim();
+        return RESPOND_ASYNC.equalsIgnoreCase(token);
+    }
 }
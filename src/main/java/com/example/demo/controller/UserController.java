@@ -1,35 +1,62 @@
 package com.example.demo.controller;
 
+import java.net.URI;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.domain.TodoStage;
+import com.example.demo.dto.CursorPageResponseBody;
 import com.example.demo.dto.PageResponseBody;
+import com.example.demo.dto.SliceResponseBody;
 import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStatsResponseBody;
 import com.example.demo.dto.UserPostRequestBody;
+import com.example.demo.dto.UserPurgeResponseBody;
 import com.example.demo.dto.UserPutRequestBody;
 import com.example.demo.dto.UserResponseBody;
+import com.example.demo.feed.TodoFeed;
+import com.example.demo.service.TodoExportService;
 import com.example.demo.service.UserService;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 
 @RestController
+@Timed(value = "app.controller", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 @RequiredArgsConstructor
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userServices;
+    private final TodoExportService todoExportService;
+    private final TodoFeed todoFeed;
+    private final ContentNegotiationManager contentNegotiationManager;
 
     @GetMapping()
     public ResponseEntity<PageResponseBody<UserResponseBody>> getAllUsers(Pageable pageable) {
@@ -42,9 +69,50 @@ public class UserController {
                 page.getTotalPages()));
     }
 
+    @GetMapping(params = { "count=none", "!after" })
+    public ResponseEntity<SliceResponseBody<UserResponseBody>> getAllUsersSlice(Pageable pageable) {
+        Slice<UserResponseBody> slice = userServices.listSlice(pageable);
+        return ResponseEntity.ok(new SliceResponseBody<>(
+                slice.getContent(),
+                slice.getNumber(),
+                slice.getSize(),
+                slice.hasNext()));
+    }
+
+    @GetMapping(params = { "count=estimated", "!after" })
+    public ResponseEntity<PageResponseBody<UserResponseBody>> getAllUsersWithEstimatedTotal(Pageable pageable) {
+        Page<UserResponseBody> page = userServices.listWithEstimatedTotal(pageable);
+        return ResponseEntity.ok(new PageResponseBody<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages()));
+    }
+
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResponseBody<UserResponseBody>> getAllUsersAfter(@RequestParam String after,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        return ResponseEntity.ok(userServices.listAfter(after, size));
+    }
+
+    /**
+     * Only conditional requests look the version up first; otherwise the
+     * tag comes from the body, which is usually served from the cache.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponseBody> getUserById(@PathVariable Long id) {
-        return ResponseEntity.ok(userServices.find(id));
+    public ResponseEntity<UserResponseBody> getUserById(@PathVariable Long id, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted = contentNegotiationManager.resolveMediaTypes(request);
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String eTag = ETags.of(userServices.findVersion(id), accepted);
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+        }
+
+        UserResponseBody user = userServices.find(id);
+        return ResponseEntity.ok().eTag(ETags.of(user.version(), accepted)).body(user);
     }
 
     @PostMapping()
@@ -54,18 +122,58 @@ public class UserController {
 
     @PutMapping("/{id}")
     public ResponseEntity<UserResponseBody> updateUser(@PathVariable Long id,
-            @Valid @RequestBody UserPutRequestBody user) {
-        return ResponseEntity.ok(userServices.update(id, user));
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody UserPutRequestBody user, NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> accepted = contentNegotiationManager.resolveMediaTypes(request);
+        UserResponseBody updatedUser = userServices.update(id, user, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.of(updatedUser.version(), accepted)).body(updatedUser);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<UserResponseBody> deleteUser(@PathVariable Long id) {
-        userServices.remove(id);
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<UserPurgeResponseBody> deleteUser(@PathVariable Long id) {
+        if (userServices.remove(id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/users/" + id + "/purge"))
+                .body(userServices.purgeStatus(id));
+    }
+
+    @GetMapping("/{id}/purge")
+    public ResponseEntity<UserPurgeResponseBody> getUserPurge(@PathVariable Long id) {
+        return ResponseEntity.ok(userServices.purgeStatus(id));
     }
 
     @GetMapping("/{id}/todos")
-    public ResponseEntity<List<TodoResponseBody>> getUserTodos(@PathVariable Long id) {
-        return ResponseEntity.ok(userServices.listUserTodos(id));
+    public ResponseEntity<PageResponseBody<TodoResponseBody>> getUserTodos(@PathVariable Long id,
+            @RequestParam(required = false) TodoStage stage, @PageableDefault(sort = "id") Pageable pageable) {
+        Page<TodoResponseBody> page = userServices.listUserTodos(id, stage, pageable);
+        return ResponseEntity.ok(new PageResponseBody<>(
+                page.getContent(),
+                page.getNumber(),
+                page.getSize(),
+                page.getTotalElements(),
+                page.getTotalPages()));
+    }
+
+    @GetMapping("/{id}/todos/stats")
+    public ResponseEntity<TodoStatsResponseBody> getUserTodoStats(@PathVariable Long id) {
+        return ResponseEntity.ok(userServices.todoStats(id));
+    }
+
+    @GetMapping(path = "/{id}/todos/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUserTodoEvents(@PathVariable Long id,
+            @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        userServices.findVersion(id);
+        return ResponseEntity.ok(todoFeed.subscribe(id, lastEventId));
+    }
+
+    @GetMapping("/{id}/todos/export")
+    public ResponseEntity<StreamingResponseBody> exportUserTodos(@PathVariable Long id) {
+        userServices.findVersion(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> todoExportService.writeUserTodos(id, out));
     }
 }
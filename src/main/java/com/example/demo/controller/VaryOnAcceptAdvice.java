@@ -0,0 +1,43 @@
+package com.example.demo.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractJacksonHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Todo and user bodies are written as JSON, CBOR or Smile depending on the
+ * {@code Accept} header. {@code Vary: Accept} keeps shared caches from handing
+ * one format's body to a client that asked for another. Bodiless
+ * {@code 304 Not Modified} responses skip this advice, so the controllers add
+ * the header to those themselves.
+ */
+@ControllerAdvice(assignableTypes = { TodoController.class, UserController.class })
+class VaryOnAcceptAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJacksonHttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        List<String> vary = response.getHeaders().getVary();
+        if (!vary.contains(HttpHeaders.ACCEPT)) {
+            List<String> updated = new ArrayList<>(vary);
+            updated.add(HttpHeaders.ACCEPT);
+            response.getHeaders().setVary(updated);
+        }
+        return body;
+    }
+}
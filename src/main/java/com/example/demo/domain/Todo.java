@@ -4,23 +4,40 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * Not in the second-level cache: most todo writes are bulk HQL statements,
+ * each of which would evict the whole region. Reads are served from the
+ * cached response bodies in {@code TodoService} instead.
+ */
 @Entity
 @Data
 @NoArgsConstructor
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        // Lookups by user, or by user and stage in id order: the per-user
+        // lists, counts and exports, the stage GROUP BY, and the user_id
+        // foreign key.
+        @Index(name = "idx_todos_user_stage_id", columnList = "user_id, stage, id"),
+        // A user's todos by title prefix.
+        @Index(name = "idx_todos_user_title", columnList = "user_id, title")
+})
 public class Todo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todos_seq")
+    @SequenceGenerator(name = "todos_seq", sequenceName = "todos_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -31,10 +48,14 @@ public class Todo {
     @Enumerated(EnumType.STRING)
     private TodoStage stage;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public Todo(String title, String description, TodoStage stage) {
         this.title = title;
         this.stage = stage;
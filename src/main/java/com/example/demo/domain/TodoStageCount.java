@@ -0,0 +1,51 @@
+package com.example.demo.domain;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of todos a user has in one stage, maintained alongside every write
+ * so the dashboard never has to count todos.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@IdClass(TodoStageCount.Key.class)
+@Table(name = "todo_stage_counts")
+public class TodoStageCount {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    private TodoStage stage;
+
+    @Column(name = "todo_count", nullable = false)
+    private long todoCount;
+
+    public TodoStageCount(Long userId, TodoStage stage, Long todoCount) {
+        this.userId = userId;
+        this.stage = stage;
+        this.todoCount = todoCount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long userId;
+        private TodoStage stage;
+    }
+}
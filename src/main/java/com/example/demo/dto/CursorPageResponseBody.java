@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record CursorPageResponseBody<T>(
+    List<T> content,
+    int size,
+    String nextCursor
+) {
+
+}
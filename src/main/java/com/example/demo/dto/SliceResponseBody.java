@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+public record SliceResponseBody<T>(
+    List<T> content,
+    int number,
+    int size,
+    boolean hasNext
+) {
+
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record TodoBatchDeleteRequestBody(
+        @NotEmpty(message = "IDs are required")
+        @Size(max = 500, message = "A batch may contain at most 500 todos")
+        List<@NotNull Long> ids) {
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record TodoBatchPostRequestBody(
+        @NotEmpty(message = "Todos are required")
+        @Size(max = 500, message = "A batch may contain at most 500 todos")
+        List<@Valid @NotNull TodoPostRequestBody> todos) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+import com.example.demo.domain.TodoStage;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record TodoBatchPutRequestBody(
+        @NotEmpty(message = "Todos are required")
+        @Size(max = 500, message = "A batch may contain at most 500 todos")
+        List<@Valid @NotNull Item> todos) {
+
+    public record Item(
+            @NotNull(message = "ID is required") Long id,
+            @NotBlank(message = "Title is required") String title,
+            String description,
+            @NotNull(message = "Stage is required") TodoStage stage) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+/**
+ * Payload of a todo change feed event; {@code todo} is null once the todo has
+ * been removed.
+ */
+public record TodoEventResponseBody(Long id, TodoResponseBody todo) {
+}
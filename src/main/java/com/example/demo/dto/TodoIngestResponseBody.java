@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+public record TodoIngestResponseBody(String trackingId, Status status, Long todoId, String error) {
+
+    public enum Status {
+        PENDING,
+        CREATED,
+        FAILED
+    }
+
+    public static TodoIngestResponseBody pending(String trackingId) {
+        return new TodoIngestResponseBody(trackingId, Status.PENDING, null, null);
+    }
+}
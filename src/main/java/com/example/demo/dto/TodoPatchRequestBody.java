@@ -0,0 +1,41 @@
+package com.example.demo.dto;
+
+import com.example.demo.domain.TodoStage;
+
+import jakarta.validation.constraints.Pattern;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Changes the fields present in the body and leaves absent ones alone. As in
+ * JSON Merge Patch, an explicit {@code null} description clears it; the title
+ * and stage cannot be cleared, so {@code null} leaves them as they are.
+ * <p>
+ * The description is kept as a node so that an explicit {@code null}
+ * ({@code NullNode}) stays distinct from an absent field (Java {@code null}).
+ */
+public record TodoPatchRequestBody(
+        @Pattern(regexp = "(?s).*\\S.*", message = "Title must not be blank") String title,
+        JsonNode description,
+        TodoStage stage) {
+
+    public TodoPatchRequestBody {
+        if (description != null && !description.isNull() && !description.isString()) {
+            throw new IllegalArgumentException("Description must be a string or null");
+        }
+    }
+
+    public boolean changesDescription() {
+        return description != null;
+    }
+
+    /**
+     * @return the new description, {@code null} when it is cleared or absent
+     */
+    public String descriptionText() {
+        return description == null || description.isNull() ? null : description.stringValue();
+    }
+
+    public boolean changesAnything() {
+        return title != null || description != null || stage != null;
+    }
+}
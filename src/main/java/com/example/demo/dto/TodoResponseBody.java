@@ -1,5 +1,12 @@
 package com.example.demo.dto;
 
-public record TodoResponseBody(Long id, String title, String description, String stage, Long userId) {
+import com.example.demo.domain.TodoStage;
 
+public record TodoResponseBody(Long id, String title, String description, String stage, Long userId,
+        Long version) {
+
+    public TodoResponseBody(Long id, String title, String description, TodoStage stage, Long userId,
+            Long version) {
+        this(id, title, description, stage.toString(), userId, version);
+    }
 }
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import com.example.demo.domain.TodoStage;
+
+import jakarta.validation.constraints.NotNull;
+
+public record TodoStagePatchRequestBody(
+        @NotNull(message = "Stage is required") TodoStage stage) {
+}
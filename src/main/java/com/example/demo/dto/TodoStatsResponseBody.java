@@ -0,0 +1,8 @@
+package com.example.demo.dto;
+
+import java.util.Map;
+
+import com.example.demo.domain.TodoStage;
+
+public record TodoStatsResponseBody(Long userId, Map<TodoStage, Long> stages, long total) {
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+public record UserPurgeResponseBody(Long userId, Status status, long todosDeleted, String error) {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public static UserPurgeResponseBody running(Long userId, long todosDeleted) {
+        return new UserPurgeResponseBody(userId, Status.RUNNING, todosDeleted, null);
+    }
+}
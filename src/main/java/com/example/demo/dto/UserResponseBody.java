@@ -1,5 +1,5 @@
 package com.example.demo.dto;
 
 public record UserResponseBody(
-    Long id, String name, String email
+    Long id, String name, String email, Long version
 ) { }
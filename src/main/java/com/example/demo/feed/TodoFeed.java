@@ -0,0 +1,348 @@
+package com.example.demo.feed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.TodoEventResponseBody;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.service.TodoChangedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Server-sent change feed of each user's todos. Committed changes are turned
+ * into events on a single background thread and kept in a small per-user ring
+ * buffer, so a client reconnecting with {@code Last-Event-ID} is sent what it
+ * missed. When the missed events are no longer buffered the client is sent a
+ * {@value #RESET} event and should reload the list.
+ * <p>
+ * Each client gets a bounded queue. A client that falls that far behind is
+ * disconnected and can resume from the buffer on reconnect, as is one whose
+ * delivery finds every delivery thread busy and their queue full.
+ * <p>
+ * Only users that have a feed, connected or still within its retention, have
+ * their changes read back and buffered.
+ */
+@Slf4j
+@Component
+public class TodoFeed implements SmartLifecycle, DisposableBean {
+
+    static final String CHANGED = "changed";
+    static final String REMOVED = "removed";
+    static final String RESET = "reset";
+
+    private final TodoRepository todoRepository;
+    private final int bufferSize;
+    private final int clientQueueSize;
+    private final Duration clientTimeout;
+    private final Duration retention;
+    private final Duration reconnectDelay;
+
+    // Event ids are "<epoch>-<sequence>", so ids from before a restart are
+    // recognised as unknown rather than compared with new ones.
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, UserFeed> feeds = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private final ExecutorService updates = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ThreadPoolExecutor delivery;
+
+    public TodoFeed(TodoRepository todoRepository, MeterRegistry meterRegistry,
+            @Value("${app.todos.events.buffer-size:256}") int bufferSize,
+            @Value("${app.todos.events.client-queue-size:256}") int clientQueueSize,
+            @Value("${app.todos.events.client-timeout:PT30M}") Duration clientTimeout,
+            @Value("${app.todos.events.retention:PT10M}") Duration retention,
+            @Value("${app.todos.events.reconnect-delay:PT3S}") Duration reconnectDelay,
+            @Value("${app.todos.events.delivery-threads:8}") int deliveryThreads,
+            @Value("${app.todos.events.delivery-queue-capacity:1000}") int deliveryQueueCapacity) {
+        this.todoRepository = todoRepository;
+        this.bufferSize = bufferSize;
+        // Room for a full replay, or a reconnecting client would overflow at once.
+        this.clientQueueSize = Math.max(clientQueueSize, bufferSize + 1);
+        this.clientTimeout = clientTimeout;
+        this.retention = retention;
+        this.reconnectDelay = reconnectDelay;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.delivery = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(deliveryQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "todo-feed-delivery-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ExecutorServiceMetrics.monitor(meterRegistry, delivery, "todo-feed-delivery");
+
+        Gauge.builder("app.todos.events.subscribers", feeds,
+                        userFeeds -> userFeeds.values().stream().mapToInt(feed -> feed.subscribers.size()).sum())
+                .description("Clients connected to a todo change feed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a feed for the user, first replaying the buffered events after
+     * {@code lastEventId} when one is given.
+     */
+    public SseEmitter subscribe(Long userId, String lastEventId) {
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(clientTimeout.toMillis()));
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        try {
+            // Also commits the response headers, so clients see the stream open.
+            subscriber.emitter.send(SseEmitter.event().reconnectTime(reconnectDelay.toMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Long lastSequence = parse(lastEventId);
+        feeds.compute(userId, (id, feed) -> {
+            UserFeed userFeed = feed != null ? feed : new UserFeed(sequence.get());
+            userFeed.subscribe(subscriber, lastEventId, lastSequence);
+            return userFeed;
+        });
+        subscriber.schedule();
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        List<Long> ids = List.copyOf(event.ids());
+        Map<Long, Long> removedOwners = Map.copyOf(event.removedOwners());
+        updates.execute(() -> apply(ids, removedOwners));
+    }
+
+    /**
+     * Forgets the buffers of users nobody has followed or changed for the
+     * retention period.
+     */
+    @Scheduled(fixedDelayString = "${app.todos.events.cleanup-interval:PT1M}")
+    public void evictIdleFeeds() {
+        long cutoff = System.nanoTime() - retention.toNanos();
+        feeds.keySet().forEach(userId -> feeds.computeIfPresent(userId,
+                (id, feed) -> feed.subscribers.isEmpty() && feed.lastActivity - cutoff < 0 ? null : feed));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Ends every open stream. Runs before the web server's graceful shutdown,
+     * which would otherwise wait for these never-ending requests.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        feeds.values().stream()
+                .flatMap(feed -> List.copyOf(feed.subscribers).stream())
+                .forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void destroy() {
+        updates.shutdown();
+        delivery.shutdown();
+    }
+
+    private void apply(List<Long> ids, Map<Long, Long> removedOwners) {
+        if (feeds.isEmpty()) {
+            return;
+        }
+        try {
+            List<Long> existing = ids.stream().filter(id -> !removedOwners.containsKey(id)).toList();
+            List<TodoResponseBody> todos = existing.isEmpty() ? List.of()
+                    : todoRepository.findResponseBodiesByIdIn(existing);
+
+            todos.forEach(todo -> publish(todo.userId(), CHANGED, new TodoEventResponseBody(todo.id(), todo)));
+            removedOwners.forEach((id, userId) -> publish(userId, REMOVED, new TodoEventResponseBody(id, null)));
+        } catch (RuntimeException e) {
+            log.warn("Could not publish todo feed events for {}", ids, e);
+        }
+    }
+
+    /**
+     * Buffers the event for a user that has a feed. Without one there is
+     * nobody to send it to, and a client that reconnects later is sent a
+     * {@value #RESET} anyway.
+     */
+    private void publish(Long userId, String name, TodoEventResponseBody data) {
+        List<Subscriber> notify = new ArrayList<>();
+        feeds.computeIfPresent(userId, (id, feed) -> {
+            notify.addAll(feed.append(new Event(sequence.incrementAndGet(), name, data)));
+            return feed;
+        });
+        notify.forEach(Subscriber::schedule);
+    }
+
+    private Long parse(String lastEventId) {
+        if (lastEventId == null || !lastEventId.startsWith(epoch + "-")) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private record Event(long sequence, String name, Object data) {
+    }
+
+    /**
+     * Buffered events and connected clients of one user. Only touched inside
+     * {@code feeds.compute}, which serialises access per user.
+     */
+    private final class UserFeed {
+
+        private final Deque<Event> buffer = new ArrayDeque<>();
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        // Every event after this sequence is still in the buffer.
+        private long complete;
+        private volatile long lastActivity = System.nanoTime();
+
+        private UserFeed(long complete) {
+            this.complete = complete;
+        }
+
+        private void subscribe(Subscriber subscriber, String lastEventId, Long lastSequence) {
+            lastActivity = System.nanoTime();
+            if (lastEventId != null) {
+                if (lastSequence == null || lastSequence < complete) {
+                    subscriber.offer(new Event(sequence.get(), RESET, ""));
+                } else {
+                    buffer.stream().filter(event -> event.sequence() > lastSequence).forEach(subscriber::offer);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+
+        private List<Subscriber> append(Event event) {
+            lastActivity = System.nanoTime();
+            if (buffer.size() == bufferSize) {
+                complete = buffer.removeFirst().sequence();
+            }
+            buffer.addLast(event);
+
+            List<Subscriber> notify = List.copyOf(subscribers);
+            notify.forEach(subscriber -> subscriber.offer(event));
+            subscribers.removeIf(subscriber -> subscriber.overflowed);
+            return notify;
+        }
+    }
+
+    /**
+     * One connected client. Events are sent in order from a delivery thread,
+     * at most one at a time per client.
+     */
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> pending = new ArrayBlockingQueue<>(clientQueueSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+            if (!closed && !pending.offer(event)) {
+                overflowed = true;
+                closed = true;
+            }
+        }
+
+        /**
+         * Starts delivery of the queued events, or disconnects the client if
+         * its queue overflowed or no delivery thread can take it. Never called
+         * inside {@code feeds.compute}, since completing the emitter may call
+         * back into {@link #close()}.
+         */
+        private void schedule() {
+            if (overflowed) {
+                log.debug("Disconnecting slow todo feed client of user {}", userId);
+                emitter.complete();
+            } else if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    delivery.execute(this::deliver);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Disconnecting todo feed client of user {}, delivery is saturated", userId);
+                    scheduled.set(false);
+                    close();
+                    emitter.complete();
+                }
+            }
+        }
+
+        private void deliver() {
+            try {
+                Event event;
+                while (!closed && (event = pending.poll()) != null) {
+                    emitter.send(SseEmitter.event()
+                            .id(epoch + "-" + event.sequence())
+                            .name(event.name())
+                            .data(event.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed) {
+                schedule();
+            }
+        }
+
+        private void close() {
+            closed = true;
+            pending.clear();
+            feeds.computeIfPresent(userId, (id, feed) -> {
+                feed.subscribers.remove(this);
+                return feed;
+            });
+        }
+    }
+}
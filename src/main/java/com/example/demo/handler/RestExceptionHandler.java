@@ -2,7 +2,9 @@ package com.example.demo.handler;
 
 import java.util.List;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -52,6 +54,15 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
         HttpException response = new HttpException(status.value(), error, message);
 
+        return ResponseEntity.status(status.value()).headers(ex.getHeaders()).body(response);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<?> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+        HttpException response = new HttpException(status.value(), "Resource was modified concurrently",
+                status.getReasonPhrase());
+
         return ResponseEntity.status(status.value()).body(response);
     }
 }
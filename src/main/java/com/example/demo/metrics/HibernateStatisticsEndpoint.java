@@ -0,0 +1,75 @@
+package com.example.demo.metrics;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Exposes the Hibernate statistics that have no Micrometer meter, most notably
+ * the text of the slowest query and the per-region second-level cache counts,
+ * under {@code /actuator/hibernate}.
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public HibernateStatistics statistics() {
+        return new HibernateStatistics(
+                statistics.getQueryExecutionCount(),
+                statistics.getPrepareStatementCount(),
+                statistics.getEntityLoadCount(),
+                statistics.getEntityFetchCount(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryExecutionMaxTimeQueryString(),
+                statistics.getQueryExecutionMaxTime(),
+                regions());
+    }
+
+    private Map<String, RegionStatistics> regions() {
+        Map<String, RegionStatistics> regions = new TreeMap<>();
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).forEach(name -> {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.put(name, new RegionStatistics(region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        });
+        return regions;
+    }
+
+    public record HibernateStatistics(
+            long queryExecutionCount,
+            long prepareStatementCount,
+            long entityLoadCount,
+            long entityFetchCount,
+            long secondLevelCacheHitCount,
+            long secondLevelCacheMissCount,
+            String slowestQuery,
+            long slowestQueryMillis,
+            Map<String, RegionStatistics> secondLevelCacheRegions) {
+    }
+
+    /**
+     * @param elementCountInMemory entries currently cached, or -1 if the cache
+     *        provider does not report it
+     */
+    public record RegionStatistics(long hitCount, long missCount, long putCount, long elementCountInMemory) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class SqlStatementMetricsInterceptor implements HandlerInterceptor {
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        sqlStatementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            DistributionSummary.builder("app.http.sql.statements")
+                    .description("SQL statements issued while handling a request")
+                    .tag("operation", MetricsConfig.operation(handlerMethod.getBeanType(),
+                            handlerMethod.getMethod().getName()))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(sqlStatementCounter.current());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.ratelimit;
+
+import java.util.Set;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Names the client behind a request: {@code key:<key>} for an API key issued
+ * through {@link RateLimitProperties#apiKeys()}, {@code ip:<address>} for
+ * everyone else. An unknown key counts as no key, so clients cannot pick a
+ * fresh identity per request.
+ */
+public class ClientIdentity {
+
+    private final String apiKeyHeader;
+    private final Set<String> apiKeys;
+
+    public ClientIdentity(RateLimitProperties properties) {
+        this.apiKeyHeader = properties.apiKeyHeader();
+        this.apiKeys = properties.apiKeys();
+    }
+
+    public String of(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.example.demo.exception.RateLimitExceededException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies {@link RateLimitProperties} once the handler is known, so every
+ * request to a route shares one bucket per client whatever its path
+ * variables.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final ClientIdentity clientIdentity;
+    private final Rule defaultRule;
+    private final Map<String, Rule> routeRules;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.rateLimiter = new RateLimiter(properties.maxBuckets());
+        this.properties = properties;
+        this.clientIdentity = new ClientIdentity(properties);
+        this.defaultRule = Rule.of(properties.defaultLimit());
+        this.routeRules = properties.routes().stream()
+                .collect(Collectors.toMap(route -> route.method() + " " + route.pattern(),
+                        route -> Rule.of(route.limit())));
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String route = request.getMethod() + " " + request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Rule rule = routeRules.getOrDefault(route, defaultRule);
+
+        long waitNanos = rateLimiter.tryAcquire(new BucketKey(clientIdentity.of(request), route), rule.intervalNanos(),
+                rule.burst());
+        if (waitNanos > 0) {
+            Counter.builder("app.ratelimit.rejected")
+                    .description("Requests turned away by the rate limiter")
+                    .tag("route", route)
+                    .register(meterRegistry)
+                    .increment();
+            throw new RateLimitExceededException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1));
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.idle-timeout:PT5M}")
+    public void evictIdleBuckets() {
+        rateLimiter.evictIdle(properties.idleTimeout().toNanos());
+    }
+
+    private record BucketKey(String client, String route) {
+    }
+
+    private record Rule(long intervalNanos, int burst) {
+
+        static Rule of(RateLimitProperties.Limit limit) {
+            return new Rule((long) (TimeUnit.SECONDS.toNanos(1) / limit.requestsPerSecond()), limit.burst());
+        }
+    }
+}
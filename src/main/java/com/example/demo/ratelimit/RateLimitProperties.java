@@ -0,0 +1,47 @@
+package com.example.demo.ratelimit;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Per-client request limits. A client is identified by its API key header
+ * when the key is one of {@code apiKeys}, and by its address otherwise, so
+ * made-up keys neither escape the limit nor create buckets. Each client has
+ * one bucket per route, where a route is the HTTP method and the matched path
+ * pattern, such as {@code GET /todos/{id}}.
+ *
+ * @param apiKeys    keys issued to callers that are limited on their own
+ * @param routes     limits for specific routes; other routes use {@code defaultLimit}
+ * @param maxBuckets buckets kept at most; the least used go first beyond it
+ */
+@ConfigurationProperties("app.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("X-API-Key") String apiKeyHeader,
+        Set<String> apiKeys,
+        @DefaultValue Limit defaultLimit,
+        List<Route> routes,
+        @DefaultValue("PT5M") Duration idleTimeout,
+        @DefaultValue("100000") int maxBuckets) {
+
+    public RateLimitProperties {
+        apiKeys = apiKeys == null ? Set.of() : Set.copyOf(apiKeys);
+        routes = routes == null ? List.of() : routes;
+    }
+
+    public record Limit(
+            @DefaultValue("50") double requestsPerSecond,
+            @DefaultValue("100") int burst) {
+    }
+
+    public record Route(String method, String pattern, double requestsPerSecond, int burst) {
+
+        Limit limit() {
+            return new Limit(requestsPerSecond, burst);
+        }
+    }
+}
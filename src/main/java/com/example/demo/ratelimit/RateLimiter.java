@@ -0,0 +1,82 @@
+package com.example.demo.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token buckets kept as the Generic Cell Rate Algorithm: each bucket is a
+ * single {@link AtomicLong} holding the theoretical arrival time of the next
+ * request, so acquiring is one read and one compare-and-set. Buckets sit in a
+ * Caffeine cache bounded to {@code maxBuckets}, whose lookups take no lock and
+ * which keeps the busiest buckets when a flood of new keys arrives.
+ * <p>
+ * A bucket whose arrival time has passed is full again and carries no state,
+ * so idle buckets can simply be dropped.
+ */
+public class RateLimiter {
+
+    static final int DEFAULT_MAX_BUCKETS = 100_000;
+
+    private final Cache<Object, AtomicLong> buckets;
+    private final LongSupplier clock;
+
+    public RateLimiter() {
+        this(DEFAULT_MAX_BUCKETS);
+    }
+
+    public RateLimiter(int maxBuckets) {
+        this(maxBuckets, System::nanoTime);
+    }
+
+    RateLimiter(int maxBuckets, LongSupplier clock) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .build();
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     *
+     * @param intervalNanos time for one token to refill
+     * @param burst         bucket capacity
+     * @return 0 if the request may proceed, otherwise the nanoseconds until it
+     *         would
+     */
+    public long tryAcquire(Object key, long intervalNanos, int burst) {
+        long now = clock.getAsLong();
+        long tolerance = intervalNanos * (burst - 1);
+        AtomicLong bucket = buckets.getIfPresent(key);
+        if (bucket == null) {
+            bucket = buckets.asMap().computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long arrival = bucket.get();
+            long ahead = arrival - now;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            long next = (ahead > 0 ? arrival : now) + intervalNanos;
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that have been full for longer than {@code idleNanos}.
+     */
+    public void evictIdle(long idleNanos) {
+        long now = clock.getAsLong();
+        buckets.asMap().values().removeIf(bucket -> now - bucket.get() > idleNanos);
+    }
+
+    public long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
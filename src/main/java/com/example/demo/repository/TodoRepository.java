@@ -1,9 +1,128 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
+import com.example.demo.domain.TodoStageCount;
+import com.example.demo.dto.TodoResponseBody;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface TodoRepository extends JpaRepository<Todo, Long>, JpaSpecificationExecutor<Todo> {
+    @Query(value = """
+            select new com.example.demo.dto.TodoResponseBody(t.id, t.title, t.description, t.stage, t.user.id,
+                    t.version)
+            from Todo t
+            """, countQuery = "select count(t) from Todo t")
+    Page<TodoResponseBody> findAllResponseBodies(Pageable pageable);
+
+    @Query("""
+            select new com.example.demo.dto.TodoResponseBody(t.id, t.title, t.description, t.stage, t.user.id,
+                    t.version)
+            from Todo t
+            """)
+    Slice<TodoResponseBody> findResponseBodySlice(Pageable pageable);
+
+    @Query("""
+            select new com.example.demo.dto.TodoResponseBody(t.id, t.title, t.description, t.stage, t.user.id,
+                    t.version)
+            from Todo t
+            where t.id > :id
+            order by t.id
+            """)
+    List<TodoResponseBody> findResponseBodiesAfter(Long id, Limit limit);
+
+    @Query("""
+            select new com.example.demo.dto.TodoResponseBody(t.id, t.title, t.description, t.stage, t.user.id,
+                    t.version)
+            from Todo t
+            where t.id in :ids
+            """)
+    List<TodoResponseBody> findResponseBodiesByIdIn(Collection<Long> ids);
+
+    @Query(value = """
+            select new com.example.demo.dto.TodoResponseBody(t.id, t.title, t.description, t.stage, t.user.id,
+                    t.version)
+            from Todo t
+            where t.user.id = :userId
+            """, countQuery = "select count(t) from Todo t where t.user.id = :userId")
+    Page<TodoResponseBody> findResponseBodiesByUserId(Long userId, Pageable pageable);
+
+    @Query(value = """
+            select new com.example.demo.dto.TodoResponseBody(t.id, t.title, t.description, t.stage, t.user.id,
+                    t.version)
+            from Todo t
+            where t.user.id = :userId and t.stage = :stage
+            """, countQuery = "select count(t) from Todo t where t.user.id = :userId and t.stage = :stage")
+    Page<TodoResponseBody> findResponseBodiesByUserIdAndStage(Long userId, TodoStage stage, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Todo> findLockedById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Todo> findLockedByIdIn(Collection<Long> ids);
+
+    @Query("""
+            select new com.example.demo.domain.TodoStageCount(t.user.id, t.stage, count(t))
+            from Todo t
+            where t.user.id = :userId
+            group by t.user.id, t.stage
+            """)
+    List<TodoStageCount> countByStage(Long userId);
+
+    @Query("select t.version from Todo t where t.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query("select t.id from Todo t where t.user.id = :userId order by t.id")
+    List<Long> findIdsByUserId(Long userId, Limit limit);
+
+    @Modifying
+    @Query("""
+            update Todo t
+            set t.title = coalesce(:title, t.title),
+                t.description = case when :setDescription = true then :description else t.description end,
+                t.stage = coalesce(:stage, t.stage),
+                t.version = t.version + 1
+            where t.id = :id and (:version is null or t.version = :version)
+            """)
+    int patch(Long id, String title, boolean setDescription, String description, TodoStage stage, Long version);
+
+    @Modifying
+    @Query("""
+            update Todo t
+            set t.stage = :stage, t.version = t.version + 1
+            where t.id = :id and (:version is null or t.version = :version)
+            """)
+    int updateStage(Long id, TodoStage stage, Long version);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t from Todo t where t.user.id = :userId order by t.id")
+    Stream<Todo> streamByUserId(Long userId);
 
-public interface TodoRepository extends JpaRepository<Todo, Long> {
-    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select t from Todo t order by t.id")
+    Stream<Todo> streamAll();
 }
@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
+
+/**
+ * Filters for {@code GET /todos}. Each predicate is sargable, so combinations
+ * that include the user are served by the per-user indexes declared on
+ * {@link Todo}. Without a user the query walks the primary key in id order
+ * and filters as it goes.
+ */
+public final class TodoSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private TodoSpecifications() {
+    }
+
+    public static Specification<Todo> hasStageIn(Collection<TodoStage> stages) {
+        return (root, query, cb) -> root.get("stage").in(stages);
+    }
+
+    public static Specification<Todo> hasIdAfter(Long id) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Todo> hasUserId(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    /**
+     * A plain {@code LIKE 'prefix%'} rather than {@code lower(title)}, which
+     * would defeat the index. Case-insensitivity comes from the column's
+     * {@code _ci} collation on MySQL.
+     */
+    public static Specification<Todo> titleStartsWith(String prefix) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("title"), pattern, LIKE_ESCAPE);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.example.demo.domain.TodoStage;
+import com.example.demo.domain.TodoStageCount;
+
+import jakarta.persistence.LockModeType;
+
+public interface TodoStageCountRepository extends JpaRepository<TodoStageCount, TodoStageCount.Key> {
+    List<TodoStageCount> findByUserId(Long userId);
+
+    /**
+     * Reads the latest committed counters rather than the transaction's
+     * snapshot, which under REPEATABLE READ may predate them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<TodoStageCount> findLockedByUserId(Long userId);
+
+    long countByUserId(Long userId);
+
+    /**
+     * Creates the counter unless it exists, including one committed after
+     * this transaction's snapshot.
+     */
+    @Modifying
+    @Query("""
+            insert into TodoStageCount (userId, stage, todoCount)
+            values (:userId, :stage, :todoCount)
+            on conflict do nothing
+            """)
+    int createIfAbsent(Long userId, TodoStage stage, long todoCount);
+
+    @Modifying
+    @Query("""
+            update TodoStageCount c
+            set c.todoCount = c.todoCount + :delta
+            where c.userId = :userId and c.stage = :stage
+            """)
+    int adjust(Long userId, TodoStage stage, long delta);
+
+    @Modifying
+    @Query("delete from TodoStageCount c where c.userId = :userId")
+    int deleteByUserId(Long userId);
+}
@@ -0,0 +1,42 @@
+package com.example.demo.search;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@code GET /actuator/search} reports the index size and
+ * {@code POST /actuator/search} rebuilds it from the database.
+ */
+@Component
+@Endpoint(id = "search")
+@RequiredArgsConstructor
+public class TodoSearchEndpoint {
+
+    private final TodoSearchIndex searchIndex;
+    private final TodoSearchIndexer searchIndexer;
+
+    @ReadOperation
+    public IndexStatus status() {
+        return new IndexStatus(searchIndex.size());
+    }
+
+    @WriteOperation
+    public RebuildResult rebuild() {
+        long start = System.nanoTime();
+        long indexed = searchIndexer.rebuild();
+        return new RebuildResult(indexed >= 0, Math.max(indexed, 0),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public record IndexStatus(int documents) {
+    }
+
+    public record RebuildResult(boolean rebuilt, long indexed, long durationMillis) {
+    }
+}
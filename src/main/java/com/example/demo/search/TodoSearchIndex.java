@@ -0,0 +1,312 @@
+package com.example.demo.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.dto.TodoResponseBody;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedded Lucene index over todo titles and descriptions. Documents store
+ * every field of {@link TodoResponseBody}, so search results are served
+ * without touching the database. Changes become searchable on the next
+ * {@link #refresh()} and durable on the next periodic {@link #commit()}; a
+ * crash in between is repaired by a rebuild.
+ * <p>
+ * A rebuild fills a separate {@link Staging} index, which then replaces the
+ * contents of this one between two refreshes, so searches never see a half
+ * built index.
+ */
+@Slf4j
+@Component
+public class TodoSearchIndex implements DisposableBean {
+
+    static final int MAX_RESULT_WINDOW = 1000;
+
+    private static final String ID = "id";
+    private static final String USER_ID = "userId";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String STAGE = "stage";
+    private static final String VERSION = "version";
+    private static final float TITLE_BOOST = 2f;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Path indexPath;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    /**
+     * @param indexDir where the index lives on disk, resolved against the
+     *                 working directory; blank keeps it in memory
+     */
+    public TodoSearchIndex(@Value("${app.search.index-dir:}") String indexDir) throws IOException {
+        this.indexPath = indexDir.isBlank() ? null : Path.of(indexDir).toAbsolutePath();
+        this.directory = indexPath == null ? new ByteBuffersDirectory() : FSDirectory.open(indexPath);
+        log.info("Todo search index in {}", indexPath == null ? "memory" : indexPath);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    public void index(Collection<TodoResponseBody> todos) {
+        try {
+            for (TodoResponseBody todo : todos) {
+                writer.updateDocument(new Term(ID, todo.id().toString()), toDocument(todo));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(Collection<Long> ids) {
+        try {
+            writer.deleteDocuments(ids.stream().map(id -> new Term(ID, id.toString())).toArray(Term[]::new));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens an empty index beside this one for a rebuild to fill.
+     */
+    public Staging stage() {
+        Path stagingPath = indexPath == null ? null : indexPath.resolveSibling(indexPath.getFileName() + ".rebuild");
+        try {
+            return new Staging(stagingPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Swaps the contents of this index for the staged ones and commits. The
+     * change becomes searchable on the next {@link #refresh()}, so callers
+     * must not refresh concurrently.
+     */
+    public synchronized void replaceWith(Staging staging) {
+        try {
+            staging.writer.close();
+            writer.deleteAll();
+            writer.addIndexes(staging.directory);
+            writer.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int size() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-interval:PT30S}")
+    public synchronized void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ranked search within one user's todos. Title matches weigh more than
+     * description matches. Only the first {@value #MAX_RESULT_WINDOW} hits can
+     * be paged through.
+     */
+    public Page<TodoResponseBody> search(Long userId, String text, Pageable pageable) {
+        long end = pageable.getOffset() + pageable.getPageSize();
+        if (end > MAX_RESULT_WINDOW) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Search results are limited to the first " + MAX_RESULT_WINDOW + " hits");
+        }
+
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        BooleanQuery.Builder matches = new BooleanQuery.Builder().setMinimumNumberShouldMatch(1);
+        for (String term : terms) {
+            matches.add(new BoostQuery(new TermQuery(new Term(TITLE, term)), TITLE_BOOST), BooleanClause.Occur.SHOULD);
+            matches.add(new TermQuery(new Term(DESCRIPTION, term)), BooleanClause.Occur.SHOULD);
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER_ID, userId.toString())), BooleanClause.Occur.FILTER)
+                .add(matches.build(), BooleanClause.Occur.MUST)
+                .build();
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs topDocs = searcher.search(query, (int) end);
+            long total = topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                    ? topDocs.totalHits.value
+                    : searcher.count(query);
+
+            List<TodoResponseBody> content = new ArrayList<>();
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            for (int i = (int) pageable.getOffset(); i < hits.length; i++) {
+                content.add(toResponseBody(searcher.storedFields().document(hits[i].doc)));
+            }
+            return new PageImpl<>(content, pageable, total);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        try {
+            commit();
+            searcherManager.close();
+            writer.close();
+        } finally {
+            directory.close();
+        }
+    }
+
+    /**
+     * Index a rebuild writes into before it replaces the live one. Closing it
+     * deletes it.
+     */
+    public final class Staging implements AutoCloseable {
+
+        private final Path path;
+        private final Directory directory;
+        private final IndexWriter writer;
+
+        private Staging(Path path) throws IOException {
+            this.path = path;
+            this.directory = path == null ? new ByteBuffersDirectory() : FSDirectory.open(path);
+            this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(OpenMode.CREATE));
+        }
+
+        public void index(Collection<TodoResponseBody> todos) {
+            try {
+                for (TodoResponseBody todo : todos) {
+                    writer.addDocument(toDocument(todo));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                writer.close();
+                for (String file : directory.listAll()) {
+                    directory.deleteFile(file);
+                }
+            } finally {
+                directory.close();
+            }
+            if (path != null) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Document toDocument(TodoResponseBody todo) {
+        Document document = new Document();
+        document.add(new StringField(ID, todo.id().toString(), Field.Store.YES));
+        document.add(new StringField(USER_ID, todo.userId().toString(), Field.Store.YES));
+        document.add(new TextField(TITLE, todo.title(), Field.Store.YES));
+        if (todo.description() != null) {
+            document.add(new TextField(DESCRIPTION, todo.description(), Field.Store.YES));
+        }
+        document.add(new StoredField(STAGE, todo.stage()));
+        document.add(new StoredField(VERSION, todo.version()));
+        return document;
+    }
+
+    private static TodoResponseBody toResponseBody(Document document) {
+        return new TodoResponseBody(
+                Long.valueOf(document.get(ID)),
+                document.get(TITLE),
+                document.get(DESCRIPTION),
+                document.get(STAGE),
+                Long.valueOf(document.get(USER_ID)),
+                document.getField(VERSION).numericValue().longValue());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.service.TodoChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps {@link TodoSearchIndex} in step with the database. Incremental updates
+ * run after commit on a single background thread, so they apply in order and
+ * never hold up the request that caused them.
+ * <p>
+ * Updates keep going to the live index while a rebuild fills a staging one.
+ * Todos changed meanwhile may be staged with their old contents, so they are
+ * applied again right after the swap.
+ */
+@Slf4j
+@Component
+public class TodoSearchIndexer implements DisposableBean {
+
+    private final TodoRepository todoRepository;
+    private final TodoSearchIndex searchIndex;
+    private final int batchSize;
+    private final int rebuildThreads;
+    private final ExecutorService updates = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-search-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Set<Long> changedDuringRebuild;
+
+    public TodoSearchIndexer(TodoRepository todoRepository, TodoSearchIndex searchIndex,
+            @Value("${app.search.rebuild-batch-size:1000}") int batchSize,
+            @Value("${app.search.rebuild-threads:0}") int rebuildThreads) {
+        this.todoRepository = todoRepository;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+        this.rebuildThreads = rebuildThreads > 0 ? rebuildThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTodoChanged(TodoChangedEvent event) {
+        List<Long> ids = List.copyOf(event.ids());
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.addAll(ids);
+        }
+        updates.execute(() -> apply(ids));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        updates.execute(() -> {
+            if (searchIndex.size() == 0 && todoRepository.count() > 0) {
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * Re-indexes every todo into a staging index and swaps it in. A single
+     * reader walks the table by primary key while a pool of workers analyses
+     * and writes the batches.
+     *
+     * @return the number of todos indexed, or -1 if a rebuild is already running
+     */
+    public long rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return -1;
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(rebuildThreads);
+        Semaphore inFlight = new Semaphore(rebuildThreads * 2);
+        AtomicLong indexed = new AtomicLong();
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+        try (TodoSearchIndex.Staging staging = searchIndex.stage()) {
+            List<CompletableFuture<Void>> batches = new ArrayList<>();
+            long lastId = 0;
+            List<TodoResponseBody> batch;
+            do {
+                batch = todoRepository.findResponseBodiesAfter(lastId, Limit.of(batchSize));
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).id();
+                    List<TodoResponseBody> todos = batch;
+                    inFlight.acquireUninterruptibly();
+                    batches.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            staging.index(todos);
+                            indexed.addAndGet(todos.size());
+                        } finally {
+                            inFlight.release();
+                        }
+                    }, workers));
+                }
+            } while (batch.size() == batchSize);
+
+            CompletableFuture.allOf(batches.toArray(CompletableFuture[]::new)).join();
+            swap(staging);
+            log.info("Rebuilt todo search index with {} todos", indexed.get());
+            return indexed.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            changedDuringRebuild = null;
+            workers.shutdown();
+            rebuilding.set(false);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        updates.shutdown();
+    }
+
+    /**
+     * Holds off incremental updates, and with them refreshes, while the
+     * staged index replaces the live one.
+     */
+    private synchronized void swap(TodoSearchIndex.Staging staging) {
+        Set<Long> changed = changedDuringRebuild;
+        changedDuringRebuild = null;
+        searchIndex.replaceWith(staging);
+        if (changed.isEmpty()) {
+            searchIndex.refresh();
+        } else {
+            apply(List.copyOf(changed));
+        }
+    }
+
+    private synchronized void apply(List<Long> ids) {
+        try {
+            List<TodoResponseBody> todos = todoRepository.findResponseBodiesByIdIn(ids);
+            Set<Long> found = todos.stream().map(TodoResponseBody::id).collect(Collectors.toSet());
+
+            searchIndex.index(todos);
+            searchIndex.delete(ids.stream().filter(id -> !found.contains(id)).toList());
+            searchIndex.refresh();
+        } catch (RuntimeException e) {
+            log.warn("Could not update the todo search index for {}", ids, e);
+        }
+    }
+}
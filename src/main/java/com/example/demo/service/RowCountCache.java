@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Periodically refreshed row counts used to fill page totals without a
+ * {@code SELECT COUNT(*)} per request. A count is computed on first use and
+ * only refreshed afterwards, so tables nobody asks about are never counted.
+ */
+@Component
+@RequiredArgsConstructor
+public class RowCountCache {
+
+    private static final long UNKNOWN = -1;
+
+    private final TodoRepository todoRepository;
+    private final UserRepository userRepository;
+
+    private final AtomicLong todos = new AtomicLong(UNKNOWN);
+    private final AtomicLong users = new AtomicLong(UNKNOWN);
+
+    public long todos() {
+        return get(todos, todoRepository::count);
+    }
+
+    public long users() {
+        return get(users, userRepository::count);
+    }
+
+    /**
+     * Turns a slice into a page whose total is the cached count, raised where
+     * needed so it never contradicts what the slice itself has seen.
+     */
+    static <T> Page<T> withEstimatedTotal(Slice<T> slice, long estimatedTotal) {
+        long seen = slice.getPageable().isPaged()
+                ? slice.getPageable().getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0)
+                : slice.getNumberOfElements();
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), Math.max(estimatedTotal, seen));
+    }
+
+    @Scheduled(fixedDelayString = "${app.pagination.count-refresh-interval:PT1M}")
+    void refresh() {
+        refresh(todos, todoRepository::count);
+        refresh(users, userRepository::count);
+    }
+
+    private long get(AtomicLong count, LongSupplier counter) {
+        long value = count.get();
+        if (value == UNKNOWN) {
+            value = counter.getAsLong();
+            count.compareAndSet(UNKNOWN, value);
+        }
+        return value;
+    }
+
+    private void refresh(AtomicLong count, LongSupplier counter) {
+        if (count.get() != UNKNOWN) {
+            count.set(counter.getAsLong());
+        }
+    }
+}
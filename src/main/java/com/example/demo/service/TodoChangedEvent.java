@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Published by {@link TodoService} whenever todos are created, changed or
+ * removed. Listeners re-read the current state by id rather than trusting a
+ * payload, so late or repeated delivery is harmless. Removed todos cannot be
+ * re-read, so their owners travel with the event.
+ *
+ * @param removedOwners user id of each removed todo, keyed by todo id
+ */
+public record TodoChangedEvent(Collection<Long> ids, Map<Long, Long> removedOwners) {
+
+    public TodoChangedEvent(Collection<Long> ids) {
+        this(ids, Map.of());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.domain.Todo;
+import com.example.demo.repository.TodoRepository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes todos as newline-delimited JSON straight from a database cursor.
+ * Every row is detached once written and the persistence context is cleared
+ * periodically, so heap usage does not grow with the number of rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class TodoExportService {
+
+    private static final int CLEAR_INTERVAL = 1_000;
+    private static final byte NEWLINE = '\n';
+
+    private final TodoRepository todoRepository;
+    private final TodoMapper todoMapper;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
+
+    @Transactional(readOnly = true)
+    public void writeUserTodos(Long userId, OutputStream out) throws IOException {
+        try (Stream<Todo> todos = todoRepository.streamByUserId(userId)) {
+            write(todos, out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeAllTodos(OutputStream out) throws IOException {
+        try (Stream<Todo> todos = todoRepository.streamAll()) {
+            write(todos, out);
+        }
+    }
+
+    private void write(Stream<Todo> todos, OutputStream out) throws IOException {
+        long written = 0;
+        Iterator<Todo> iterator = todos.iterator();
+
+        while (iterator.hasNext()) {
+            Todo todo = iterator.next();
+            out.write(jsonMapper.writeValueAsBytes(todoMapper.toTodoResponseBody(todo)));
+            out.write(NEWLINE);
+            entityManager.detach(todo);
+
+            if (++written % CLEAR_INTERVAL == 0) {
+                entityManager.clear();
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.dto.TodoIngestResponseBody;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind ingestion for new todos. Accepted todos wait in a bounded
+ * queue and a single writer thread saves them through
+ * {@link TodoService#saveAll}, so each batch costs one transaction and one
+ * batched insert. A batch is written once it reaches the configured size or
+ * its oldest todo has waited the configured delay, whichever comes first.
+ * If the database rejects a batch, its todos are saved one at a time so that
+ * only the offending ones fail.
+ * <p>
+ * Stops after the web server, so requests accepted before shutdown are still
+ * written. Outcomes are kept for a while under the tracking id returned on
+ * submission.
+ */
+@Slf4j
+@Component
+public class TodoIngestQueue implements SmartLifecycle {
+
+    public enum Overflow {
+        REJECT,
+        BLOCK
+    }
+
+    private static final Duration STATUS_RETENTION = Duration.ofMinutes(10);
+    private static final long WAKE_UP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final TodoService todoService;
+    private final UserRepository userRepository;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final Overflow overflow;
+    private final Duration blockTimeout;
+    private final Duration shutdownTimeout;
+    private final Cache<String, TodoIngestResponseBody> statuses;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private volatile boolean stopped;
+    private Thread writer;
+
+    public TodoIngestQueue(TodoService todoService, UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${app.todos.ingest.capacity:10000}") int capacity,
+            @Value("${app.todos.ingest.batch-size:500}") int batchSize,
+            @Value("${app.todos.ingest.max-delay:PT0.2S}") Duration maxDelay,
+            @Value("${app.todos.ingest.overflow:reject}") Overflow overflow,
+            @Value("${app.todos.ingest.block-timeout:PT1S}") Duration blockTimeout,
+            @Value("${app.todos.ingest.shutdown-timeout:PT30S}") Duration shutdownTimeout) {
+        this.todoService = todoService;
+        this.userRepository = userRepository;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.overflow = overflow;
+        this.blockTimeout = blockTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(capacity * 10L)
+                .expireAfterWrite(STATUS_RETENTION)
+                .build();
+
+        Gauge.builder("app.todos.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("Todos accepted but not yet written")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("app.todos.ingest.batch.size")
+                .description("Todos written per write-behind batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("app.todos.ingest.rejected")
+                .description("Todos turned away because the ingest queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a todo for the next batch. When the queue is full the todo is
+     * either rejected straight away or after waiting up to the block timeout,
+     * depending on the overflow policy.
+     */
+    public TodoIngestResponseBody submit(TodoPostRequestBody todo) {
+        if (stopped) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Todo ingestion is shutting down");
+        }
+
+        Pending pending = new Pending(UUID.randomUUID().toString(), todo);
+        TodoIngestResponseBody status = TodoIngestResponseBody.pending(pending.trackingId());
+        statuses.put(pending.trackingId(), status);
+        if (!offer(pending)) {
+            statuses.invalidate(pending.trackingId());
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Todo ingest queue is full");
+        }
+        return status;
+    }
+
+    public TodoIngestResponseBody status(String trackingId) {
+        TodoIngestResponseBody status = statuses.getIfPresent(trackingId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Tracking id not found");
+        }
+        return status;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drain, "todo-ingest-writer");
+        writer.start();
+    }
+
+    /**
+     * Stops accepting todos and waits for the writer to flush the queue.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Shut down with {} queued todos not written", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Runs after the web server has stopped taking requests, which stops in
+     * an earlier phase.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private boolean offer(Pending pending) {
+        if (overflow == Overflow.REJECT) {
+            return queue.offer(pending);
+        }
+        try {
+            return queue.offer(pending, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                Pending first = queue.poll(WAKE_UP_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch, System.nanoTime() + maxDelay.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Tops the batch up until it is full or the deadline passes. Waits in
+     * short slices so a stop cuts the wait short.
+     */
+    private void fill(List<Pending> batch, long deadline) throws InterruptedException {
+        queue.drainTo(batch, batchSize - batch.size());
+        while (batch.size() < batchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(Math.min(remaining, WAKE_UP_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        try {
+            Set<Long> userIds = new HashSet<>(userRepository.findIdsByIdIn(
+                    batch.stream().map(pending -> pending.todo().userId()).distinct().toList()));
+
+            List<Pending> accepted = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                if (userIds.contains(pending.todo().userId())) {
+                    accepted.add(pending);
+                } else {
+                    fail(pending, "User not found");
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            List<TodoResponseBody> saved;
+            try {
+                saved = todoService.saveAll(accepted.stream().map(Pending::todo).toList());
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Batch of {} queued todos rejected, writing them one at a time", accepted.size(), e);
+                writeEach(accepted);
+                return;
+            }
+            for (int i = 0; i < accepted.size(); i++) {
+                created(accepted.get(i), saved.get(i).id());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not write a batch of {} queued todos", batch.size(), e);
+            batch.stream()
+                    .filter(this::isPending)
+                    .forEach(pending -> fail(pending, "Todo could not be saved"));
+        }
+    }
+
+    private void writeEach(List<Pending> batch) {
+        for (Pending pending : batch) {
+            try {
+                created(pending, todoService.save(pending.todo()).id());
+            } catch (ResponseStatusException e) {
+                fail(pending, e.getReason());
+            } catch (RuntimeException e) {
+                log.warn("Could not write queued todo {}", pending.trackingId(), e);
+                fail(pending, "Todo could not be saved");
+            }
+        }
+    }
+
+    private boolean isPending(Pending pending) {
+        TodoIngestResponseBody status = statuses.getIfPresent(pending.trackingId());
+        return status != null && status.status() == TodoIngestResponseBody.Status.PENDING;
+    }
+
+    private void created(Pending pending, Long todoId) {
+        statuses.put(pending.trackingId(), new TodoIngestResponseBody(pending.trackingId(),
+                TodoIngestResponseBody.Status.CREATED, todoId, null));
+    }
+
+    private void fail(Pending pending, String error) {
+        statuses.put(pending.trackingId(), new TodoIngestResponseBody(pending.trackingId(),
+                TodoIngestResponseBody.Status.FAILED, null, error));
+    }
+
+    private record Pending(String trackingId, TodoPostRequestBody todo) {
+    }
+}
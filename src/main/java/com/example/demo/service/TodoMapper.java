@@ -18,7 +18,7 @@ public class TodoMapper {
         }
 
         return new TodoResponseBody(todo.getId(), todo.getTitle(), todo.getDescription(), todo.getStage().toString(),
-                todo.getUser().getId());
+                todo.getUser().getId(), todo.getVersion());
     }
 
     public Todo toTodo(TodoPostRequestBody todoPostRequestBody, User user) {
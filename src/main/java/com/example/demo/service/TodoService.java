@@ -1,57 +1,384 @@
 package com.example.demo.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.demo.config.ReadYourWrites;
 import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
+import com.example.demo.domain.TodoStageCount;
 import com.example.demo.domain.User;
+import com.example.demo.dto.CursorPageResponseBody;
+import com.example.demo.dto.TodoBatchPutRequestBody;
+import com.example.demo.dto.TodoPatchRequestBody;
 import com.example.demo.dto.TodoPostRequestBody;
 import com.example.demo.dto.TodoPutRequestBody;
 import com.example.demo.dto.TodoResponseBody;
 import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.TodoSpecifications;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.search.TodoSearchIndex;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
+@Timed(value = "app.service", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 @RequiredArgsConstructor
 public class TodoService {
 
+    static final String CACHE_NAME = "todos";
+
     private final TodoRepository todoRepository;
     private final UserRepository userRepository;
     private final TodoMapper todoMapper;
+    private final CacheManager cacheManager;
+    private final RowCountCache rowCountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TodoSearchIndex searchIndex;
+    private final TodoStageCounter stageCounter;
 
+    @Transactional(readOnly = true)
     public Page<TodoResponseBody> list(Pageable pageable) {
-        return todoRepository.findAll(pageable).map(todoMapper::toTodoResponseBody);
+        return todoRepository.findAllResponseBodies(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<TodoResponseBody> list(List<TodoStage> stages, Long userId, String titlePrefix, Pageable pageable) {
+        Specification<Todo> filter = filter(stages, userId, titlePrefix);
+        if (filter == null) {
+            return list(pageable);
+        }
+        return todoRepository.findAll(filter, pageable).map(todoMapper::toTodoResponseBody);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<TodoResponseBody> listSlice(Pageable pageable) {
+        return todoRepository.findResponseBodySlice(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<TodoResponseBody> listSlice(List<TodoStage> stages, Long userId, String titlePrefix,
+            Pageable pageable) {
+        Specification<Todo> filter = filter(stages, userId, titlePrefix);
+        if (filter == null) {
+            return listSlice(pageable);
+        }
+        return todoRepository.findBy(filter, query -> query.slice(pageable)).map(todoMapper::toTodoResponseBody);
     }
 
+    @Transactional(readOnly = true)
+    public Page<TodoResponseBody> listWithEstimatedTotal(Pageable pageable) {
+        return RowCountCache.withEstimatedTotal(listSlice(pageable), rowCountCache.todos());
+    }
+
+    /**
+     * The estimate is the size of the whole table, so it cannot stand in for
+     * the total of a filtered list.
+     */
+    @Transactional(readOnly = true)
+    public Page<TodoResponseBody> listWithEstimatedTotal(List<TodoStage> stages, Long userId, String titlePrefix,
+            Pageable pageable) {
+        if (filter(stages, userId, titlePrefix) != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "count=estimated cannot be combined with stage, userId or title");
+        }
+        return listWithEstimatedTotal(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponseBody<TodoResponseBody> listAfter(String cursor, int size) {
+        List<TodoResponseBody> todos = todoRepository.findResponseBodiesAfter(CursorCodec.decode(cursor),
+                Limit.of(size + 1));
+
+        List<TodoResponseBody> content = todos.size() > size ? todos.subList(0, size) : todos;
+        String nextCursor = todos.size() > size ? CursorCodec.encode(content.get(size - 1).id()) : null;
+        return new CursorPageResponseBody<>(content, content.size(), nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponseBody<TodoResponseBody> listAfter(String cursor, int size, List<TodoStage> stages,
+            Long userId, String titlePrefix) {
+        Specification<Todo> filter = filter(stages, userId, titlePrefix);
+        if (filter == null) {
+            return listAfter(cursor, size);
+        }
+
+        Specification<Todo> after = TodoSpecifications.hasIdAfter(CursorCodec.decode(cursor));
+        List<TodoResponseBody> todos = todoRepository.findBy(filter.and(after),
+                query -> query.sortBy(Sort.by("id")).limit(size + 1).all())
+                .stream()
+                .map(todoMapper::toTodoResponseBody)
+                .toList();
+
+        List<TodoResponseBody> content = todos.size() > size ? todos.subList(0, size) : todos;
+        String nextCursor = todos.size() > size ? CursorCodec.encode(content.get(size - 1).id()) : null;
+        return new CursorPageResponseBody<>(content, content.size(), nextCursor);
+    }
+
+    public Page<TodoResponseBody> search(Long userId, String text, Pageable pageable) {
+        return searchIndex.search(userId, text, pageable);
+    }
+
+    @Transactional(readOnly = true, label = ReadYourWrites.PRIMARY)
+    @Cacheable(cacheNames = CACHE_NAME, key = "#id")
     public TodoResponseBody find(Long id) {
         return todoMapper.toTodoResponseBody(todoRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Todo not found")));
     }
 
+    @Transactional(readOnly = true)
+    public Long findVersion(Long id) {
+        return todoRepository.findVersionById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Todo not found"));
+    }
+
+    @Transactional
     public TodoResponseBody save(TodoPostRequestBody todoRequest) {
         User user = userRepository.findById(todoRequest.userId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-        Todo todo = todoMapper.toTodo(todoRequest, user);
-        return todoMapper.toTodoResponseBody(todoRepository.save(todo));
+        stageCounter.initialize(user.getId());
+        Todo todo = todoRepository.save(todoMapper.toTodo(todoRequest, user));
+        stageCounter.adjust(user.getId(), todo.getStage(), 1);
+        eventPublisher.publishEvent(new TodoChangedEvent(List.of(todo.getId())));
+        return todoMapper.toTodoResponseBody(todo);
     }
 
-    public TodoResponseBody update(Long id, TodoPutRequestBody todoRequest) {
+    @Transactional
+    @CachePut(cacheNames = CACHE_NAME, key = "#id")
+    public TodoResponseBody update(Long id, TodoPutRequestBody todoRequest, Long expectedVersion) {
         Todo existingTodo = todoRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Todo not found"));
 
+        if (expectedVersion != null && !expectedVersion.equals(existingTodo.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Todo was modified");
+        }
+
+        stageCounter.initialize(existingTodo.getUser().getId());
+        stageCounter.move(existingTodo.getUser().getId(), existingTodo.getStage(), todoRequest.stage());
         existingTodo.setTitle(todoRequest.title());
         existingTodo.setDescription(todoRequest.description());
         existingTodo.setStage(todoRequest.stage());
-        return todoMapper.toTodoResponseBody(todoRepository.save(existingTodo));
+        Todo todo = todoRepository.saveAndFlush(existingTodo);
+        eventPublisher.publishEvent(new TodoChangedEvent(List.of(id)));
+        return todoMapper.toTodoResponseBody(todo);
+    }
+
+    @Transactional
+    public void patch(Long id, TodoPatchRequestBody todoRequest, Long expectedVersion) {
+        if (!todoRequest.changesAnything()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Patch must change at least one field");
+        }
+        Todo current = todoRequest.stage() == null ? null : lock(id);
+        if (current != null) {
+            stageCounter.initialize(current.getUser().getId());
+        }
+        int updated = todoRepository.patch(id, todoRequest.title(), todoRequest.changesDescription(),
+                todoRequest.descriptionText(), todoRequest.stage(), expectedVersion);
+        checkUpdated(id, updated, expectedVersion);
+        if (current != null) {
+            stageCounter.move(current.getUser().getId(), current.getStage(), todoRequest.stage());
+        }
+        evict(List.of(id));
+        eventPublisher.publishEvent(new TodoChangedEvent(List.of(id)));
     }
 
+    @Transactional
+    public void updateStage(Long id, TodoStage stage, Long expectedVersion) {
+        Todo current = lock(id);
+        stageCounter.initialize(current.getUser().getId());
+        int updated = todoRepository.updateStage(id, stage, expectedVersion);
+        checkUpdated(id, updated, expectedVersion);
+        stageCounter.move(current.getUser().getId(), current.getStage(), stage);
+        evict(List.of(id));
+        eventPublisher.publishEvent(new TodoChangedEvent(List.of(id)));
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#id")
     public void remove(Long id) {
-        todoRepository.deleteById(id);
+        Map<Long, Long> owners = todoRepository.findById(id).map(todo -> {
+            stageCounter.initialize(todo.getUser().getId());
+            todoRepository.delete(todo);
+            stageCounter.adjust(todo.getUser().getId(), todo.getStage(), -1);
+            return owners(List.of(todo));
+        }).orElse(Map.of());
+        eventPublisher.publishEvent(new TodoChangedEvent(List.of(id), owners));
+    }
+
+    @Transactional
+    public List<TodoResponseBody> saveAll(List<TodoPostRequestBody> todoRequests) {
+        Set<Long> userIds = todoRequests.stream()
+                .map(TodoPostRequestBody::userId)
+                .collect(Collectors.toSet());
+
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        if (users.size() != userIds.size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+
+        users.keySet().forEach(stageCounter::initialize);
+        List<Todo> todos = todoRequests.stream()
+                .map(todoRequest -> todoMapper.toTodo(todoRequest, users.get(todoRequest.userId())))
+                .toList();
+
+        List<Todo> savedTodos = todoRepository.saveAll(todos);
+        adjustCounts(savedTodos, 1);
+        eventPublisher.publishEvent(new TodoChangedEvent(savedTodos.stream().map(Todo::getId).toList()));
+        return savedTodos.stream()
+                .map(todoMapper::toTodoResponseBody)
+                .toList();
+    }
+
+    @Transactional
+    public List<TodoResponseBody> updateAll(List<TodoBatchPutRequestBody.Item> todoRequests) {
+        Set<Long> ids = todoRequests.stream()
+                .map(TodoBatchPutRequestBody.Item::id)
+                .collect(Collectors.toSet());
+
+        Map<Long, Todo> todos = todoRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Todo::getId, Function.identity()));
+
+        if (todos.size() != ids.size()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Todo not found");
+        }
+
+        evict(ids);
+        initializeCounts(todos.values());
+        todoRequests.forEach(todoRequest -> {
+            Todo existingTodo = todos.get(todoRequest.id());
+            stageCounter.move(existingTodo.getUser().getId(), existingTodo.getStage(), todoRequest.stage());
+            existingTodo.setTitle(todoRequest.title());
+            existingTodo.setDescription(todoRequest.description());
+            existingTodo.setStage(todoRequest.stage());
+        });
+
+        // Flush so the response bodies carry the incremented versions.
+        todoRepository.flush();
+        eventPublisher.publishEvent(new TodoChangedEvent(ids));
+        return todoRequests.stream()
+                .map(todoRequest -> todoMapper.toTodoResponseBody(todos.get(todoRequest.id())))
+                .toList();
+    }
+
+    @Transactional
+    public void removeAll(List<Long> ids) {
+        List<Todo> todos = todoRepository.findLockedByIdIn(ids);
+        initializeCounts(todos);
+        todoRepository.deleteAllByIdInBatch(ids);
+        adjustCounts(todos, -1);
+        evict(ids);
+        eventPublisher.publishEvent(new TodoChangedEvent(ids, owners(todos)));
+    }
+
+    /**
+     * Deletes up to {@code limit} of the user's todos, lowest ids first, with
+     * one set-based delete and returns how many went. The user's stage
+     * counters are dropped too and are rebuilt on demand if the user stays.
+     */
+    @Transactional
+    public int removeByUserId(Long userId, int limit) {
+        stageCounter.delete(userId);
+        List<Long> ids = todoRepository.findIdsByUserId(userId, Limit.of(limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        todoRepository.deleteAllByIdInBatch(ids);
+        evict(ids);
+        eventPublisher.publishEvent(new TodoChangedEvent(ids,
+                ids.stream().collect(Collectors.toMap(Function.identity(), id -> userId))));
+        return ids.size();
+    }
+
+    /**
+     * Combines the {@code GET /todos} filters, or returns {@code null} when
+     * none is set.
+     */
+    private static Specification<Todo> filter(List<TodoStage> stages, Long userId, String titlePrefix) {
+        List<Specification<Todo>> filters = new ArrayList<>();
+        if (stages != null && !stages.isEmpty()) {
+            filters.add(TodoSpecifications.hasStageIn(stages));
+        }
+        if (userId != null) {
+            filters.add(TodoSpecifications.hasUserId(userId));
+        }
+        if (titlePrefix != null && !titlePrefix.isBlank()) {
+            filters.add(TodoSpecifications.titleStartsWith(titlePrefix));
+        }
+        return filters.isEmpty() ? null : Specification.allOf(filters);
+    }
+
+    private Todo lock(Long id) {
+        return todoRepository.findLockedById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Todo not found"));
+    }
+
+    /**
+     * Initializes the owners' counters before the todos change; see
+     * {@link TodoStageCounter#initialize}.
+     */
+    private void initializeCounts(Collection<Todo> todos) {
+        todos.stream()
+                .map(todo -> todo.getUser().getId())
+                .distinct()
+                .forEach(stageCounter::initialize);
+    }
+
+    private void adjustCounts(List<Todo> todos, int sign) {
+        todos.stream()
+                .collect(Collectors.groupingBy(todo -> new TodoStageCount.Key(todo.getUser().getId(), todo.getStage()),
+                        Collectors.counting()))
+                .forEach((key, count) -> stageCounter.adjust(key.getUserId(), key.getStage(), sign * count));
+    }
+
+    private static Map<Long, Long> owners(List<Todo> todos) {
+        return todos.stream().collect(Collectors.toMap(Todo::getId, todo -> todo.getUser().getId()));
+    }
+
+    private void checkUpdated(Long id, int updated, Long expectedVersion) {
+        if (updated > 0) {
+            return;
+        }
+
+        // No row matched: tell a missing todo apart from a stale If-Match.
+        if (expectedVersion != null && todoRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Todo was modified");
+        }
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Todo not found");
+    }
+
+    private void evict(Iterable<Long> ids) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache != null) {
+            Cache afterCommit = new TransactionAwareCacheDecorator(cache);
+            ids.forEach(afterCommit::evict);
+        }
     }
 }
@@ -0,0 +1,125 @@
+package com.example.demo.service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.TodoStage;
+import com.example.demo.domain.TodoStageCount;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.TodoStageCountRepository;
+import com.example.demo.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-user todo counts by stage, kept in {@code todo_stage_counts} and
+ * adjusted in the same transaction as the todo write. A user's counters are
+ * created on first use from a single {@code GROUP BY}. Concurrent first
+ * writers queue on the user row lock, and the one that waited re-reads the
+ * counters with a locking read, since under REPEATABLE READ its snapshot may
+ * predate the counters the other one committed; the insert skips any counter
+ * that exists all the same.
+ * <p>
+ * Writers call {@link #initialize} before changing any of the user's todos,
+ * so the {@code GROUP BY} never already contains the change whose deltas
+ * they apply afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoStageCounter {
+
+    private final TodoStageCountRepository countRepository;
+    private final TodoRepository todoRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Creates the user's missing counters from their todos as they stand
+     * before this transaction changes them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void initialize(Long userId) {
+        if (countRepository.countByUserId(userId) < TodoStage.values().length) {
+            userRepository.findLockedById(userId);
+            createMissing(userId);
+        }
+    }
+
+    /**
+     * Applies the delta to an initialized counter. A counter a concurrent
+     * purge has just deleted is rebuilt from the todos on its next use, so
+     * there is nothing to apply the delta to.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void adjust(Long userId, TodoStage stage, long delta) {
+        if (delta != 0) {
+            countRepository.adjust(userId, stage, delta);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void move(Long userId, TodoStage from, TodoStage to) {
+        if (from != to) {
+            adjust(userId, from, -1);
+            adjust(userId, to, 1);
+        }
+    }
+
+    /**
+     * Reads one counter per stage for the user, however many todos the user
+     * has.
+     */
+    @Transactional
+    public Map<TodoStage, Long> counts(Long userId) {
+        List<TodoStageCount> rows = countRepository.findByUserId(userId);
+        if (rows.size() < TodoStage.values().length) {
+            if (userRepository.findLockedById(userId).isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+            }
+            rows = createMissing(userId);
+        }
+
+        Map<TodoStage, Long> counts = new EnumMap<>(TodoStage.class);
+        rows.forEach(row -> counts.put(row.getStage(), row.getTodoCount()));
+        return counts;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void delete(Long userId) {
+        countRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * Creates the user's missing counters and returns all of them. Callers
+     * hold the lock on the user row. The {@code GROUP BY} still reads this
+     * transaction's snapshot, but only counts stages no committed counter
+     * covers yet: every writer creates the counters before it changes a todo,
+     * so no todo change committed after the snapshot can be missing from it.
+     */
+    private List<TodoStageCount> createMissing(Long userId) {
+        List<TodoStageCount> rows = countRepository.findLockedByUserId(userId);
+        Set<TodoStage> existing = rows.stream()
+                .map(TodoStageCount::getStage)
+                .collect(Collectors.toSet());
+        if (existing.size() == TodoStage.values().length) {
+            return rows;
+        }
+
+        Map<TodoStage, Long> actual = todoRepository.countByStage(userId).stream()
+                .collect(Collectors.toMap(TodoStageCount::getStage, TodoStageCount::getTodoCount));
+        for (TodoStage stage : TodoStage.values()) {
+            if (!existing.contains(stage)) {
+                countRepository.createIfAbsent(userId, stage, actual.getOrDefault(stage, 0L));
+            }
+        }
+        return countRepository.findLockedByUserId(userId);
+    }
+}
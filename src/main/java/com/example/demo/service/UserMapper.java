@@ -13,10 +13,10 @@ public class UserMapper {
             throw new IllegalArgumentException("User cannot be null");
         }
 
-        return new UserResponseBody(user.getId(), user.getName(), user.getEmail());
+        return new UserResponseBody(user.getId(), user.getName(), user.getEmail(), user.getVersion());
     }
 
-    public User toUser(UserPostRequestBody userRequest) {
-        return new User(userRequest.name(), userRequest.email(), userRequest.password());
+    public User toUser(UserPostRequestBody userRequest, String passwordHash) {
+        return new User(userRequest.name(), userRequest.email(), passwordHash);
     }
 }
@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.dto.UserPurgeResponseBody;
+import com.example.demo.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes a user together with their todos in chunks of set-based deletes,
+ * one transaction per chunk, so no transaction holds locks on or keeps undo
+ * for more than a chunk of rows. The user row goes in the same transaction as
+ * the last chunk.
+ * <p>
+ * A user whose todos fit in one chunk is deleted within the request. Larger
+ * users are purged on the application task executor; if the purge stops
+ * half way, deleting the user again carries on where it left off. Only one
+ * purge runs per user at a time.
+ */
+@Slf4j
+@Component
+public class UserPurgeJob {
+
+    private static final Duration STATUS_RETENTION = Duration.ofHours(1);
+    static final String FAILED_MESSAGE = "Purge stopped; delete the user again to resume";
+
+    private final TodoService todoService;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor executor;
+    private final int chunkSize;
+    private final com.github.benmanes.caffeine.cache.Cache<Long, UserPurgeResponseBody> statuses;
+    private final Counter deletedTodos;
+
+    public UserPurgeJob(TodoService todoService, UserRepository userRepository, CacheManager cacheManager,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("applicationTaskExecutor") TaskExecutor executor, MeterRegistry meterRegistry,
+            @Value("${app.users.purge.chunk-size:1000}") int chunkSize) {
+        this.todoService = todoService;
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(STATUS_RETENTION)
+                .build();
+        this.deletedTodos = Counter.builder("app.users.purge.todos")
+                .description("Todos deleted along with their user")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes the user straight away if one chunk clears their todos, and
+     * otherwise starts a background purge unless one is already running.
+     *
+     * @return whether the user is gone
+     */
+    public boolean purge(Long userId) {
+        UserPurgeResponseBody claim = UserPurgeResponseBody.running(userId, 0);
+        UserPurgeResponseBody current = statuses.asMap().compute(userId,
+                (id, status) -> status != null && status.status() == UserPurgeResponseBody.Status.RUNNING
+                        ? status
+                        : claim);
+        if (current != claim) {
+            return false;
+        }
+
+        Chunk first;
+        try {
+            first = deleteChunk(userId);
+        } catch (RuntimeException e) {
+            statuses.asMap().remove(userId, claim);
+            throw e;
+        }
+        if (first.userDeleted()) {
+            statuses.asMap().remove(userId, claim);
+            return true;
+        }
+
+        statuses.put(userId, UserPurgeResponseBody.running(userId, first.todos()));
+        executor.execute(() -> purgeInBackground(userId, first.todos()));
+        return false;
+    }
+
+    public UserPurgeResponseBody status(Long userId) {
+        UserPurgeResponseBody status = statuses.getIfPresent(userId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Purge not found");
+        }
+        return status;
+    }
+
+    private void purgeInBackground(Long userId, long todosDeleted) {
+        try {
+            Chunk chunk;
+            do {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Purge interrupted");
+                }
+                chunk = deleteChunk(userId);
+                todosDeleted += chunk.todos();
+                statuses.put(userId, UserPurgeResponseBody.running(userId, todosDeleted));
+            } while (!chunk.userDeleted());
+
+            Cache users = cacheManager.getCache(UserService.CACHE_NAME);
+            if (users != null) {
+                users.evict(userId);
+            }
+            statuses.put(userId, new UserPurgeResponseBody(userId, UserPurgeResponseBody.Status.COMPLETED,
+                    todosDeleted, null));
+        } catch (RuntimeException e) {
+            log.warn("Purge of user {} stopped after {} todos", userId, todosDeleted, e);
+            statuses.put(userId, new UserPurgeResponseBody(userId, UserPurgeResponseBody.Status.FAILED,
+                    todosDeleted, FAILED_MESSAGE));
+        }
+    }
+
+    /**
+     * Locks the user row first, so no todo can be added for the user between
+     * selecting the chunk and deleting the user.
+     */
+    private Chunk deleteChunk(Long userId) {
+        Chunk chunk = transactionTemplate.execute(status -> {
+            if (userRepository.findLockedById(userId).isEmpty()) {
+                return new Chunk(0, true);
+            }
+            int todos = todoService.removeByUserId(userId, chunkSize);
+            if (todos == chunkSize) {
+                return new Chunk(todos, false);
+            }
+            userRepository.deleteUserById(userId);
+            return new Chunk(todos, true);
+        });
+        deletedTodos.increment(chunk.todos());
+        return chunk;
+    }
+
+    private record Chunk(int todos, boolean userDeleted) {
+    }
+}
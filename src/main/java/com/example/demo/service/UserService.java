@@ -1,34 +1,97 @@
 package com.example.demo.service;
 
 import java.util.List;
-
+import java.util.Locale;
+import java.util.Map;
+
+import org.hibernate.boot.model.naming.Identifier;
+import org.hibernate.boot.model.naming.NamingHelper;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.demo.config.ReadYourWrites;
+import com.example.demo.domain.TodoStage;
 import com.example.demo.domain.User;
+import com.example.demo.dto.CursorPageResponseBody;
 import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStatsResponseBody;
 import com.example.demo.dto.UserPostRequestBody;
+import com.example.demo.dto.UserPurgeResponseBody;
 import com.example.demo.dto.UserPutRequestBody;
 import com.example.demo.dto.UserResponseBody;
+import com.example.demo.repository.TodoRepository;
 import com.example.demo.repository.UserRepository;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 
 @Service
+@Timed(value = "app.service", histogram = true, percentiles = { 0.5, 0.95, 0.99 })
 @RequiredArgsConstructor
 public class UserService {
 
+    static final String CACHE_NAME = "users";
+
+    /**
+     * The email unique constraint as the migrations and the entity name it,
+     * and as Hibernate named it in schemas it created before that.
+     */
+    private static final List<String> EMAIL_CONSTRAINTS = List.of("uk_users_email",
+            NamingHelper.INSTANCE.generateHashedConstraintName("UK", Identifier.toIdentifier("users"),
+                    Identifier.toIdentifier("email")).toLowerCase(Locale.ROOT));
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
-    private final TodoMapper todoMapper;
-
+    private final TodoRepository todoRepository;
+    private final RowCountCache rowCountCache;
+    private final ObjectProvider<EmailBloomFilter> emailFilter;
+    private final TodoStageCounter stageCounter;
+    private final PasswordHasher passwordHasher;
+    private final UserPurgeJob userPurgeJob;
+
+    @Transactional(readOnly = true)
     public Page<UserResponseBody> list(Pageable pageable) {
         return userRepository.findAll(pageable).map(userMapper::toUserResponseBody);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<UserResponseBody> listSlice(Pageable pageable) {
+        return userRepository.findAllBy(pageable).map(userMapper::toUserResponseBody);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<UserResponseBody> listWithEstimatedTotal(Pageable pageable) {
+        return RowCountCache.withEstimatedTotal(listSlice(pageable), rowCountCache.users());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponseBody<UserResponseBody> listAfter(String cursor, int size) {
+        List<User> users = userRepository.findByIdGreaterThanOrderByIdAsc(CursorCodec.decode(cursor),
+                Limit.of(size + 1));
+
+        List<UserResponseBody> content = users.stream()
+                .limit(size)
+                .map(userMapper::toUserResponseBody)
+                .toList();
+
+        String nextCursor = users.size() > size ? CursorCodec.encode(content.get(size - 1).id()) : null;
+        return new CursorPageResponseBody<>(content, content.size(), nextCursor);
+    }
+
+    @Transactional(readOnly = true, label = ReadYourWrites.PRIMARY)
+    @Cacheable(cacheNames = CACHE_NAME, key = "#id")
     public UserResponseBody find(Long id) {
         UserResponseBody userResponse = userRepository.findById(id)
                 .map(userMapper::toUserResponseBody)
@@ -36,39 +99,109 @@ public class UserService {
         return userResponse;
     }
 
+    @Transactional(readOnly = true)
+    public Long findVersion(Long id) {
+        return userRepository.findVersionById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
+    @Transactional
     public UserResponseBody save(UserPostRequestBody userRequest) {
-        if (userRepository.existsByEmail(userRequest.email())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already exists");
-        }
+        checkEmailAvailable(userRequest.email());
 
-        User user = userMapper.toUser(userRequest);
-        return userMapper.toUserResponseBody(userRepository.save(user));
+        String passwordHash = passwordHasher.hash(userRequest.password());
+        User user = saveUnique(userMapper.toUser(userRequest, passwordHash));
+        return userMapper.toUserResponseBody(user);
     }
 
-    public UserResponseBody update(Long id, UserPutRequestBody userRequest) {
+    @Transactional
+    @CachePut(cacheNames = CACHE_NAME, key = "#id")
+    public UserResponseBody update(Long id, UserPutRequestBody userRequest, Long expectedVersion) {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
 
-        if (!existingUser.getEmail().equals(userRequest.email()) && userRepository.existsByEmail(userRequest.email())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already exists");
+        if (expectedVersion != null && !expectedVersion.equals(existingUser.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User was modified");
+        }
+
+        if (!existingUser.getEmail().equals(userRequest.email())) {
+            checkEmailAvailable(userRequest.email());
         }
 
         existingUser.setName(userRequest.name());
         existingUser.setEmail(userRequest.email());
-        userRepository.save(existingUser);
-        return userMapper.toUserResponseBody(existingUser);
+        return userMapper.toUserResponseBody(saveUnique(existingUser));
     }
 
-    public void remove(Long id) {
-        userRepository.deleteById(id);
+    /**
+     * Deletes the user and their todos, within the request when they fit in
+     * one chunk and through {@link UserPurgeJob} otherwise.
+     *
+     * @return whether the user is gone; if not, the purge is still running
+     */
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#id")
+    public boolean remove(Long id) {
+        return userPurgeJob.purge(id);
     }
 
-    public List<TodoResponseBody> listUserTodos(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    public UserPurgeResponseBody purgeStatus(Long id) {
+        return userPurgeJob.status(id);
+    }
 
-        return user.getTodos().stream()
-                .map(todoMapper::toTodoResponseBody)
-                .toList();
+    @Transactional(readOnly = true)
+    public Page<TodoResponseBody> listUserTodos(Long userId, TodoStage stage, Pageable pageable) {
+        if (!userRepository.existsById(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        }
+
+        if (stage == null) {
+            return todoRepository.findResponseBodiesByUserId(userId, pageable);
+        }
+        return todoRepository.findResponseBodiesByUserIdAndStage(userId, stage, pageable);
+    }
+
+    public TodoStatsResponseBody todoStats(Long userId) {
+        Map<TodoStage, Long> stages = stageCounter.counts(userId);
+        long total = stages.values().stream().mapToLong(Long::longValue).sum();
+        return new TodoStatsResponseBody(userId, stages, total);
+    }
+
+    /**
+     * Only pre-checks emails the Bloom filter may have seen. Without the filter
+     * the unique index on {@code users.email} is the sole check.
+     */
+    private void checkEmailAvailable(String email) {
+        EmailBloomFilter filter = emailFilter.getIfAvailable();
+        if (filter != null && filter.mightContain(email) && userRepository.existsByEmail(email)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already exists");
+        }
+    }
+
+    private User saveUnique(User user) {
+        User savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (violatesEmailConstraint(e)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Email already exists");
+            }
+            throw e;
+        }
+
+        EmailBloomFilter filter = emailFilter.getIfAvailable();
+        if (filter != null) {
+            filter.put(savedUser.getEmail());
+        }
+        return savedUser;
+    }
+
+    private static boolean violatesEmailConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraint = violation.getConstraintName().toLowerCase(Locale.ROOT);
+                return EMAIL_CONSTRAINTS.stream().anyMatch(constraint::contains);
+            }
+        }
+        return false;
     }
 }
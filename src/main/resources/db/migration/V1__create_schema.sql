@@ -0,0 +1,49 @@
+-- Baseline: the schema Hibernate's ddl-auto=update created before migrations.
+-- Existing databases are baselined at this version instead of running it.
+
+create table users (
+    id bigint not null,
+    version bigint not null,
+    email varchar(255) not null,
+    name varchar(255) not null,
+    password varchar(255) not null,
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table users_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into users_seq (next_val) values (1);
+
+create table todos (
+    id bigint not null,
+    user_id bigint not null,
+    version bigint not null,
+    description varchar(255),
+    title varchar(255) not null,
+    stage enum ('COMPLETED','IN_PROGRESS','NOT_STARTED','SUSPENDED'),
+    primary key (id),
+    constraint fk_todos_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table todos_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into todos_seq (next_val) values (1);
+
+create index idx_todos_user_id on todos (user_id, id);
+create index idx_todos_user_stage_id on todos (user_id, stage, id);
+create index idx_todos_user_title on todos (user_id, title);
+create index idx_todos_stage_id on todos (stage, id);
+create index idx_todos_stage_title on todos (stage, title);
+create index idx_todos_title on todos (title);
+
+create table todo_stage_counts (
+    todo_count bigint not null,
+    user_id bigint not null,
+    stage enum ('COMPLETED','IN_PROGRESS','NOT_STARTED','SUSPENDED') not null,
+    primary key (user_id, stage)
+) engine=InnoDB;
@@ -0,0 +1,8 @@
+-- Databases baselined at V1 still hold the next_val = 1 that ddl-auto=update
+-- inserted when User and Todo moved from IDENTITY to pooled sequences. The
+-- pooled optimizer hands out the 50 ids up to the value it reads, so the
+-- sequences must start a full allocation above the highest existing id.
+
+update users_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 50 from users));
+
+update todos_seq set next_val = greatest(next_val, (select coalesce(max(id), 0) + 50 from todos));
@@ -0,0 +1,7 @@
+-- Only the per-user composites declared on Todo stay. idx_todos_user_stage_id
+-- leads with user_id, so it backs fk_todos_user once idx_todos_user_id is gone.
+
+drop index idx_todos_user_id on todos;
+drop index idx_todos_stage_id on todos;
+drop index idx_todos_stage_title on todos;
+drop index idx_todos_title on todos;
@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ConcurrencyLimitingDataSourceTest {
+
+    @Test
+    void shouldHoldPermitUntilConnectionIsClosed() throws Exception {
+        DataSource target = Mockito.mock(DataSource.class);
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(target.getConnection()).thenReturn(connection);
+
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(10));
+
+        Connection borrowed = dataSource.getConnection();
+        Assertions.assertEquals(0, dataSource.availablePermits());
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        borrowed.close();
+        borrowed.close();
+
+        Assertions.assertEquals(1, dataSource.availablePermits());
+        Mockito.verify(connection, Mockito.times(2)).close();
+    }
+
+    @Test
+    void shouldReleasePermitWhenTargetFails() throws Exception {
+        DataSource target = Mockito.mock(DataSource.class);
+        Mockito.when(target.getConnection()).thenThrow(new SQLTransientConnectionException("down"));
+
+        ConcurrencyLimitingDataSource dataSource = new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(10));
+
+        Assertions.assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        Assertions.assertEquals(1, dataSource.availablePermits());
+    }
+}
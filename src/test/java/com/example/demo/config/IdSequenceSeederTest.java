@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+public class IdSequenceSeederTest {
+
+    @Test
+    void shouldRaiseSequencesOneAllocationAboveExistingIds() throws Exception {
+        DataSource dataSource = legacyDatabase("seeder-raise");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into users (id, version, email, name, password) values (120, 0, 'a@b.c', 'A', 'x')");
+        jdbc.update("insert into todos (id, user_id, version, title, stage) values (130, 120, 0, 'T', 'NOT_STARTED')");
+
+        new IdSequenceSeeder(dataSource).afterPropertiesSet();
+
+        Assertions.assertEquals(170L, jdbc.queryForObject("select next_val from users_seq", Long.class));
+        Assertions.assertEquals(180L, jdbc.queryForObject("select next_val from todos_seq", Long.class));
+    }
+
+    @Test
+    void shouldNeverLowerSequences() throws Exception {
+        DataSource dataSource = legacyDatabase("seeder-ahead");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("update users_seq set next_val = 1000");
+
+        new IdSequenceSeeder(dataSource).afterPropertiesSet();
+
+        Assertions.assertEquals(1000L, jdbc.queryForObject("select next_val from users_seq", Long.class));
+        Assertions.assertEquals(50L, jdbc.queryForObject("select next_val from todos_seq", Long.class));
+    }
+
+    @Test
+    void shouldSkipDatabasesWithoutSequenceTables() {
+        DataSource dataSource = dataSource("seeder-native");
+
+        Assertions.assertDoesNotThrow(() -> new IdSequenceSeeder(dataSource).afterPropertiesSet());
+    }
+
+    /**
+     * The schema as ddl-auto=update left it, with both sequences at 1.
+     */
+    private static DataSource legacyDatabase(String name) {
+        DataSource dataSource = dataSource(name);
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        return dataSource;
+    }
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
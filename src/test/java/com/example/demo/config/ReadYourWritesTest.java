@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.demo.ratelimit.ClientIdentity;
+import com.example.demo.ratelimit.RateLimitProperties;
+
+public class ReadYourWritesTest {
+
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(ReadYourWrites.Scope.REQUEST,
+            Duration.ofMinutes(1), new ClientIdentity(new RateLimitProperties(true, "X-API-Key", null, null,
+                    null, Duration.ofMinutes(5), 100)));
+
+    @Test
+    void shouldPinRequestThatWroteToPrimary() {
+        readYourWrites.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+        Assertions.assertFalse(readYourWrites.isPinnedToPrimary());
+
+        readYourWrites.recordWrite();
+        Assertions.assertTrue(readYourWrites.isPinnedToPrimary());
+
+        readYourWrites.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), null, null);
+        Assertions.assertFalse(readYourWrites.isPinnedToPrimary());
+    }
+
+    @Test
+    void shouldReleaseThreadWhenRequestGoesAsync() {
+        readYourWrites.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+        readYourWrites.recordWrite();
+
+        readYourWrites.afterConcurrentHandlingStarted(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                null);
+
+        Assertions.assertFalse(readYourWrites.isPinnedToPrimary());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.integration;
+
+import static com.example.demo.util.UserCreator.createUser;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureRestTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.client.RestTestClient;
+
+import com.example.demo.domain.User;
+import com.example.demo.repository.UserRepository;
+
+@AutoConfigureTestDatabase
+@AutoConfigureRestTestClient
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.search.index-dir=",
+        "app.rate-limit.api-keys=client-a,client-b",
+        "app.rate-limit.routes[0].method=GET",
+        "app.rate-limit.routes[0].pattern=/users/{id}",
+        "app.rate-limit.routes[0].requests-per-second=0.01",
+        "app.rate-limit.routes[0].burst=2" })
+public class RateLimitIT {
+
+    @Autowired
+    private RestTestClient restTestClient;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void shouldRejectRequestsOverRouteLimitPerClient() {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(new User("Other", "other@mail.com", "1234"));
+
+        getUser(user, "client-a").expectStatus().isOk();
+        // Path variables share the route's bucket.
+        getUser(otherUser, "client-a").expectStatus().isOk();
+        getUser(user, "client-a")
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "100")
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Rate limit exceeded");
+
+        getUser(user, "client-b").expectStatus().isOk();
+        restTestClient.get()
+                .uri("/users")
+                .header("X-API-Key", "client-a")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldLimitUnknownApiKeysByAddress() {
+        User user = userRepository.save(new User("Unknown", "unknown@mail.com", "1234"));
+
+        getUser(user, "made-up-1").expectStatus().isOk();
+        getUser(user, "made-up-2").expectStatus().isOk();
+        getUser(user, "made-up-3").expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private RestTestClient.ResponseSpec getUser(User user, String apiKey) {
+        return restTestClient.get()
+                .uri("/users/{id}", user.getId())
+                .header("X-API-Key", apiKey)
+                .exchange();
+    }
+}
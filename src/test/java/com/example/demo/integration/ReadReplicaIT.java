@@ -0,0 +1,217 @@
+package com.example.demo.integration;
+
+import static com.example.demo.util.UserCreator.createUser;
+import static com.example.demo.util.UserCreator.createUserPostRequestBody;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureRestTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.web.servlet.client.RestTestClient;
+
+import com.example.demo.config.ReadReplicaPools;
+import com.example.demo.domain.TodoStage;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStagePatchRequestBody;
+import com.example.demo.dto.UserPostRequestBody;
+import com.example.demo.dto.UserPutRequestBody;
+import com.example.demo.dto.UserResponseBody;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Two unconnected H2 databases stand in for a primary and a replica that has
+ * not caught up yet: rows written through the API exist only on the primary,
+ * and rows inserted directly into the replica exist only there.
+ */
+@AutoConfigureRestTestClient
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.search.index-dir=",
+        "app.rate-limit.api-keys=reader,writer",
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.datasource.replicas[0].url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicas[0].username=sa",
+        "app.datasource.replicas[0].password=",
+        "app.datasource.read-your-writes=client",
+        "app.datasource.read-your-writes-window=PT1M" })
+public class ReadReplicaIT {
+
+    @Autowired
+    private RestTestClient restTestClient;
+
+    @Autowired
+    private ReadReplicaPools pools;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void shouldReadFromReplica() {
+        new JdbcTemplate(pools.replicas().get(0)).update(
+                "insert into users (id, email, name, password, version) values (1000, 'replica@mail.com', 'Replica', 'x', 0)");
+
+        restTestClient.get()
+                .uri("/users")
+                .header("X-API-Key", "reader")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[?(@.id == 1000)].email").isEqualTo("replica@mail.com");
+    }
+
+    @Test
+    void shouldKeepRecentWriterOnPrimary() {
+        UserResponseBody created = restTestClient.post()
+                .uri("/users")
+                .header("X-API-Key", "writer")
+                .body(createUserPostRequestBody(createUser()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Another client reads from the replica, which has not seen the write.
+        restTestClient.get()
+                .uri("/users")
+                .header("X-API-Key", "reader")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[?(@.id == " + created.id() + ")]").doesNotExist();
+
+        restTestClient.get()
+                .uri("/users")
+                .header("X-API-Key", "writer")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[?(@.id == " + created.id() + ")].email").isEqualTo(created.email());
+    }
+
+    @Test
+    void shouldNotCacheStaleReplicaReadsForTheWriter() {
+        UserResponseBody user = restTestClient.post()
+                .uri("/users")
+                .header("X-API-Key", "writer")
+                .body(new UserPostRequestBody("Cached", "cached@mail.com", "password"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+        TodoResponseBody todo = restTestClient.post()
+                .uri("/todos")
+                .header("X-API-Key", "writer")
+                .body(new TodoPostRequestBody(user.id(), "Replicated", null))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TodoResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+        replicate("users", user.id());
+        replicate("todos", todo.id());
+
+        // The replica misses this write.
+        restTestClient.patch()
+                .uri("/todos/{id}/stage", todo.id())
+                .header("X-API-Key", "writer")
+                .body(new TodoStagePatchRequestBody(TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        // Another client loads the todo from the replica, then through the cached lookup.
+        restTestClient.get()
+                .uri("/todos?userId={userId}", user.id())
+                .header("X-API-Key", "reader")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].stage").isEqualTo(TodoStage.NOT_STARTED.toString());
+        restTestClient.get()
+                .uri("/todos/{id}", todo.id())
+                .header("X-API-Key", "reader")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.stage").isEqualTo(TodoStage.COMPLETED.toString());
+
+        restTestClient.get()
+                .uri("/todos/{id}", todo.id())
+                .header("X-API-Key", "writer")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.stage").isEqualTo(TodoStage.COMPLETED.toString());
+    }
+
+    @Test
+    void shouldCheckUpdatePreconditionOnPrimary() {
+        UserResponseBody user = restTestClient.post()
+                .uri("/users")
+                .header("X-API-Key", "writer")
+                .body(new UserPostRequestBody("Versioned", "versioned@mail.com", "password"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(UserResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+        replicate("users", user.id());
+        // The replica misses this write, made behind the second-level cache.
+        new JdbcTemplate(pools.primary()).update("update users set version = version + 1 where id = ?", user.id());
+        entityManagerFactory.getCache().evictAll();
+
+        restTestClient.put()
+                .uri("/users/{id}", user.id())
+                .header("X-API-Key", "reader")
+                .header(HttpHeaders.IF_MATCH, "\"" + (user.version() + 1) + "\"")
+                .body(new UserPutRequestBody("Renamed", "versioned@mail.com"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Renamed")
+                .jsonPath("$.version").isEqualTo(user.version() + 2);
+    }
+
+    /**
+     * Copies a row as the primary holds it now to the replica.
+     */
+    private void replicate(String table, Long id) {
+        Map<String, Object> row = new JdbcTemplate(pools.primary())
+                .queryForMap("select * from " + table + " where id = ?", id);
+        new SimpleJdbcInsert(pools.replicas().get(0)).withTableName(table).execute(row);
+    }
+
+    @TestConfiguration
+    static class ReplicaSchemaConfig {
+
+        /**
+         * Copies the schema Hibernate created on the primary before anything
+         * reads from the replica.
+         */
+        @Bean
+        @DependsOn("entityManagerFactory")
+        InitializingBean replicaSchema(ReadReplicaPools pools) {
+            return () -> {
+                List<String> statements = new JdbcTemplate(pools.primary())
+                        .queryForList("SCRIPT NODATA", String.class);
+                JdbcTemplate replica = new JdbcTemplate(pools.replicas().get(0));
+                statements.forEach(replica::execute);
+            };
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.integration;
+
+import static com.example.demo.util.TodoCreator.createTodo;
+import static com.example.demo.util.UserCreator.createUser;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.domain.User;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.UserRepository;
+
+/**
+ * Starts with the prod profile, so the schema comes from the Flyway
+ * migrations and Hibernate fails the context if the entities have drifted
+ * from them. H2's MySQL mode stands in for MySQL, with Hibernate told it is
+ * talking to MySQL so it expects the same tables, sequence tables included.
+ */
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+        "app.search.index-dir=",
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.properties.jakarta.persistence.database-major-version=8" })
+public class SchemaMigrationIT {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Test
+    void shouldMigrateSchemaThatMatchesEntities() {
+        Assertions.assertEquals("3", flyway.info().current().getVersion().getVersion());
+
+        User user = userRepository.save(createUser());
+        todoRepository.save(createTodo(user));
+
+        Assertions.assertEquals(1, todoRepository.count());
+    }
+
+    @Test
+    void shouldSeedIdSequencesAboveRowsOfBaselinedDatabase() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baselined;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).target("1").load().migrate();
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into users (id, version, email, name, password) values (120, 0, 'a@b.c', 'A', 'x')");
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        Assertions.assertEquals(170L, jdbc.queryForObject("select next_val from users_seq", Long.class));
+        Assertions.assertEquals(50L, jdbc.queryForObject("select next_val from todos_seq", Long.class));
+    }
+}
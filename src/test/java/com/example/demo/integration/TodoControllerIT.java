@@ -1,10 +1,16 @@
 package com.example.demo.integration;
 
+import static com.example.demo.util.TodoCreator.createSecondaryTodo;
 import static com.example.demo.util.TodoCreator.createTodo;
 import static com.example.demo.util.TodoCreator.createTodoPostRequestBody;
 import static com.example.demo.util.TodoCreator.createTodoPutRequestBody;
+import static com.example.demo.util.UserCreator.createSecondaryUser;
 import static com.example.demo.util.UserCreator.createUser;
 
+import java.time.Duration;
+import java.util.List;
+
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,21 +19,35 @@ import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabas
 import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureRestTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.client.RestTestClient;
 
 import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
 import com.example.demo.domain.User;
+import com.example.demo.dto.CursorPageResponseBody;
 import com.example.demo.dto.PageResponseBody;
+import com.example.demo.dto.SliceResponseBody;
+import com.example.demo.dto.TodoBatchDeleteRequestBody;
+import com.example.demo.dto.TodoBatchPostRequestBody;
+import com.example.demo.dto.TodoBatchPutRequestBody;
+import com.example.demo.dto.TodoIngestResponseBody;
 import com.example.demo.dto.TodoPostRequestBody;
 import com.example.demo.dto.TodoPutRequestBody;
 import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStagePatchRequestBody;
 import com.example.demo.repository.TodoRepository;
 import com.example.demo.repository.UserRepository;
 
 @AutoConfigureTestDatabase
 @AutoConfigureRestTestClient
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.search.index-dir=")
 public class TodoControllerIT {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private RestTestClient restTestClient;
 
@@ -78,6 +98,321 @@ public class TodoControllerIT {
         Assertions.assertTrue(response.content().isEmpty());
     }
 
+    @Test
+    void shouldFilterTodosByStageUserAndTitlePrefix() {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(createSecondaryUser());
+        Todo changePassword = todoRepository.save(createTodo(user));
+        Todo groceries = createSecondaryTodo(user);
+        groceries.setStage(TodoStage.IN_PROGRESS);
+        todoRepository.save(groceries);
+        Todo completed = createSecondaryTodo(user);
+        completed.setStage(TodoStage.COMPLETED);
+        todoRepository.save(completed);
+        todoRepository.save(createTodo(otherUser));
+
+        PageResponseBody<TodoResponseBody> byStages = restTestClient.get()
+                .uri("/todos?userId={userId}&stage=NOT_STARTED&stage=IN_PROGRESS&sort=id", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(byStages);
+        Assertions.assertEquals(2, byStages.totalElements());
+        Assertions.assertEquals(List.of(changePassword.getId(), groceries.getId()),
+                byStages.content().stream().map(TodoResponseBody::id).toList());
+
+        PageResponseBody<TodoResponseBody> byTitle = restTestClient.get()
+                .uri("/todos?userId={userId}&title=Buy&stage=IN_PROGRESS", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(byTitle);
+        Assertions.assertEquals(List.of(groceries.getId()),
+                byTitle.content().stream().map(TodoResponseBody::id).toList());
+    }
+
+    @Test
+    void shouldFilterSlicesAndCursorPages() {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(createSecondaryUser());
+        todoRepository.save(createTodo(otherUser));
+        Todo todo1 = todoRepository.save(createTodo(user));
+        Todo todo2 = todoRepository.save(createSecondaryTodo(user));
+
+        SliceResponseBody<TodoResponseBody> slice = restTestClient.get()
+                .uri("/todos?count=none&userId={userId}&sort=id", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<SliceResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(slice);
+        Assertions.assertEquals(List.of(todo1.getId(), todo2.getId()),
+                slice.content().stream().map(TodoResponseBody::id).toList());
+
+        CursorPageResponseBody<TodoResponseBody> firstPage = restTestClient.get()
+                .uri("/todos?count=none&after=&size=1&userId={userId}", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(firstPage);
+        Assertions.assertEquals(List.of(todo1.getId()),
+                firstPage.content().stream().map(TodoResponseBody::id).toList());
+
+        CursorPageResponseBody<TodoResponseBody> secondPage = restTestClient.get()
+                .uri("/todos?after={cursor}&size=1&userId={userId}", firstPage.nextCursor(), user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(secondPage);
+        Assertions.assertEquals(List.of(todo2.getId()),
+                secondPage.content().stream().map(TodoResponseBody::id).toList());
+        Assertions.assertNull(secondPage.nextCursor());
+    }
+
+    @Test
+    void shouldRejectFiltersWithEstimatedTotals() {
+        restTestClient.get()
+                .uri("/todos?count=estimated&userId=1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldSearchUserTodosAfterTheyAreSaved() {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(createSecondaryUser());
+        TodoResponseBody todo = restTestClient.post()
+                .uri("/todos")
+                .body(new TodoPostRequestBody(user.getId(), "Buy groceries", "Milk and eggs"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TodoResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+        restTestClient.post()
+                .uri("/todos")
+                .body(new TodoPostRequestBody(otherUser.getId(), "Buy groceries", null))
+                .exchange()
+                .expectStatus().isCreated();
+
+        Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            PageResponseBody<TodoResponseBody> response = restTestClient.get()
+                    .uri("/todos/search?userId={userId}&q=groceries", user.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
+                    })
+                    .returnResult()
+                    .getResponseBody();
+
+            Assertions.assertNotNull(response);
+            Assertions.assertEquals(List.of(todo), response.content());
+        });
+    }
+
+    @Test
+    void shouldRebuildSearchIndexFromDatabase() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createSecondaryTodo(user));
+
+        restTestClient.post()
+                .uri("/actuator/search")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rebuilt").isEqualTo(true);
+
+        restTestClient.get()
+                .uri("/todos/search?userId={userId}&q=milk", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(todo.getId());
+    }
+
+    @Test
+    void shouldAcceptTodoAsynchronouslyAndReportItsOutcome() {
+        User user = userRepository.save(createUser());
+
+        TodoIngestResponseBody accepted = restTestClient.post()
+                .uri("/todos")
+                .header("Prefer", "respond-async")
+                .body(createTodoPostRequestBody(user))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().valueEquals("Preference-Applied", "respond-async")
+                .expectBody(TodoIngestResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(accepted);
+        Assertions.assertEquals(TodoIngestResponseBody.Status.PENDING, accepted.status());
+
+        Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            TodoIngestResponseBody status = restTestClient.get()
+                    .uri("/todos/ingest/{trackingId}", accepted.trackingId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(TodoIngestResponseBody.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            Assertions.assertNotNull(status);
+            Assertions.assertEquals(TodoIngestResponseBody.Status.CREATED, status.status());
+            Assertions.assertTrue(todoRepository.existsById(status.todoId()));
+        });
+    }
+
+    @Test
+    void shouldHonourRespondAsyncAmongOtherPreferences() {
+        User user = userRepository.save(createUser());
+
+        restTestClient.post()
+                .uri("/todos")
+                .header("Prefer", "wait=5, respond-async")
+                .body(createTodoPostRequestBody(user))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().valueEquals("Preference-Applied", "respond-async");
+
+        restTestClient.post()
+                .uri("/todos")
+                .header("Prefer", "return=minimal")
+                .body(createTodoPostRequestBody(user))
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    @Test
+    void shouldReportAsyncTodoForUnknownUserAsFailed() {
+        TodoIngestResponseBody accepted = restTestClient.post()
+                .uri("/todos")
+                .header("Prefer", "respond-async")
+                .body(new TodoPostRequestBody(-1L, "Buy groceries", null))
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectBody(TodoIngestResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(accepted);
+        Awaitility.await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> restTestClient.get()
+                .uri("/todos/ingest/{trackingId}", accepted.trackingId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAILED")
+                .jsonPath("$.error").isEqualTo("User not found"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownTrackingId() {
+        restTestClient.get()
+                .uri("/todos/ingest/unknown")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldReturnSliceWithoutTotals() {
+        User user = userRepository.save(createUser());
+        todoRepository.save(createTodo(user));
+        todoRepository.save(createSecondaryTodo(user));
+
+        SliceResponseBody<TodoResponseBody> response = restTestClient.get()
+                .uri("/todos?count=none&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<SliceResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(1, response.content().size());
+        Assertions.assertTrue(response.hasNext());
+    }
+
+    @Test
+    void shouldReturnPageWithEstimatedTotals() {
+        User user = userRepository.save(createUser());
+        todoRepository.save(createTodo(user));
+        todoRepository.save(createSecondaryTodo(user));
+
+        PageResponseBody<TodoResponseBody> response = restTestClient.get()
+                .uri("/todos?count=estimated&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(1, response.content().size());
+        Assertions.assertTrue(response.totalElements() >= 2);
+    }
+
+    @Test
+    void shouldWalkTodosWithCursor() {
+        User user = userRepository.save(createUser());
+        Todo todo1 = todoRepository.save(createTodo(user));
+        Todo todo2 = todoRepository.save(createSecondaryTodo(user));
+
+        CursorPageResponseBody<TodoResponseBody> firstPage = restTestClient.get()
+                .uri("/todos?after=&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(firstPage);
+        Assertions.assertEquals(todo1.getId(), firstPage.content().get(0).id());
+        Assertions.assertNotNull(firstPage.nextCursor());
+
+        CursorPageResponseBody<TodoResponseBody> secondPage = restTestClient.get()
+                .uri("/todos?after={cursor}&size=1", firstPage.nextCursor())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageResponseBody<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(secondPage);
+        Assertions.assertEquals(todo2.getId(), secondPage.content().get(0).id());
+        Assertions.assertNull(secondPage.nextCursor());
+    }
+
+    @Test
+    void shouldRejectInvalidCursor() {
+        restTestClient.get()
+                .uri("/todos?after=not-a-cursor")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void shouldReturnTodoById() {
         User user = userRepository.save(createUser());
@@ -95,6 +430,128 @@ public class TodoControllerIT {
         Assertions.assertEquals(todo.getId(), response.id());
     }
 
+    @Test
+    void shouldReturnNotModifiedWhenTodoETagMatches() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        String eTag = restTestClient.get()
+                .uri("/todos/{id}", todo.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + todo.getVersion() + "-json\"")
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        restTestClient.get()
+                .uri("/todos/{id}", todo.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void shouldTagEachTodoFormatSeparately() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+        String jsonETag = "\"" + todo.getVersion() + "-json\"";
+        String cborETag = "\"" + todo.getVersion() + "-cbor\"";
+
+        restTestClient.get()
+                .uri("/todos/{id}", todo.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, cborETag);
+
+        restTestClient.get()
+                .uri("/todos/{id}", todo.getId())
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, jsonETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR);
+
+        restTestClient.put()
+                .uri("/todos/{id}", todo.getId())
+                .header(HttpHeaders.IF_MATCH, cborETag)
+                .body(createTodoPutRequestBody())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + (todo.getVersion() + 1) + "-json\"");
+    }
+
+    @Test
+    void shouldUpdateTodoWhenIfMatchIsCurrent() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        TodoResponseBody response = restTestClient.put()
+                .uri("/todos/{id}", todo.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + todo.getVersion() + "\"")
+                .body(createTodoPutRequestBody())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + (todo.getVersion() + 1) + "-json\"")
+                .expectBody(TodoResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(todo.getVersion() + 1, response.version());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenIfMatchIsStale() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+        String staleETag = "\"" + todo.getVersion() + "\"";
+
+        restTestClient.put()
+                .uri("/todos/{id}", todo.getId())
+                .body(createTodoPutRequestBody())
+                .exchange()
+                .expectStatus().isOk();
+
+        restTestClient.put()
+                .uri("/todos/{id}", todo.getId())
+                .header(HttpHeaders.IF_MATCH, staleETag)
+                .body(createTodoPutRequestBody())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void shouldRecordLatencyAndSqlMetricsPerOperation() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.get().uri("/todos/{id}", todo.getId()).exchange().expectStatus().isOk();
+
+        restTestClient.get()
+                .uri("/actuator/metrics/app.controller?tag=operation:TodoController.getTodoById")
+                .exchange()
+                .expectStatus().isOk();
+        restTestClient.get()
+                .uri("/actuator/metrics/app.service?tag=operation:TodoService.find")
+                .exchange()
+                .expectStatus().isOk();
+        restTestClient.get()
+                .uri("/actuator/metrics/app.http.sql.statements?tag=operation:TodoController.getTodoById")
+                .exchange()
+                .expectStatus().isOk();
+        restTestClient.get()
+                .uri("/actuator/hibernate")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.queryExecutionCount").exists();
+    }
+
     @Test
     void shouldThrowResponseStatusExceptionWhenTodoNotFound() {
         restTestClient.get()
@@ -156,6 +613,136 @@ public class TodoControllerIT {
         Assertions.assertEquals(requestBody.description(), response.description());
     }
 
+    @Test
+    void shouldPatchOnlySuppliedTodoFields() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.patch()
+                .uri("/todos/{id}", todo.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"title\":\"Patched\"}")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Todo patched = todoRepository.findById(todo.getId()).orElseThrow();
+        Assertions.assertEquals("Patched", patched.getTitle());
+        Assertions.assertEquals(todo.getDescription(), patched.getDescription());
+        Assertions.assertEquals(todo.getStage(), patched.getStage());
+        Assertions.assertEquals(todo.getVersion() + 1, patched.getVersion());
+    }
+
+    @Test
+    void shouldClearTodoDescriptionWithExplicitNull() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.patch()
+                .uri("/todos/{id}", todo.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"description\":null}")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Todo patched = todoRepository.findById(todo.getId()).orElseThrow();
+        Assertions.assertEquals(todo.getTitle(), patched.getTitle());
+        Assertions.assertNull(patched.getDescription());
+    }
+
+    @Test
+    void shouldRejectEmptyTodoPatch() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.patch()
+                .uri("/todos/{id}", todo.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        Assertions.assertEquals(todo.getVersion(), todoRepository.findById(todo.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void shouldPatchTodoStage() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.get().uri("/todos/{id}", todo.getId()).exchange().expectStatus().isOk();
+
+        restTestClient.patch()
+                .uri("/todos/{id}/stage", todo.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + todo.getVersion() + "\"")
+                .body(new TodoStagePatchRequestBody(TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        TodoResponseBody response = restTestClient.get()
+                .uri("/todos/{id}", todo.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TodoResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(TodoStage.COMPLETED.toString(), response.stage());
+        Assertions.assertEquals(todo.getTitle(), response.title());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenPatchingStaleTodo() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.patch()
+                .uri("/todos/{id}/stage", todo.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + (todo.getVersion() + 1) + "\"")
+                .body(new TodoStagePatchRequestBody(TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @Test
+    void shouldThrowResponseStatusExceptionWhenPatchingNonExistingTodo() {
+        restTestClient.patch()
+                .uri("/todos/{id}/stage", 999L)
+                .body(new TodoStagePatchRequestBody(TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldNotServeStaleTodoAfterUpdateOrDelete() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.get().uri("/todos/{id}", todo.getId()).exchange().expectStatus().isOk();
+
+        TodoPutRequestBody requestBody = createTodoPutRequestBody();
+        restTestClient.put().uri("/todos/{id}", todo.getId()).body(requestBody).exchange().expectStatus().isOk();
+
+        TodoResponseBody response = restTestClient.get()
+                .uri("/todos/{id}", todo.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TodoResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(requestBody.title(), response.title());
+
+        restTestClient.delete().uri("/todos/{id}", todo.getId()).exchange().expectStatus().isNoContent();
+        restTestClient.get().uri("/todos/{id}", todo.getId()).exchange().expectStatus().isNotFound();
+
+        restTestClient.get()
+                .uri("/actuator/metrics/cache.gets?tag=cache:todos&tag=result:hit")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
     @Test
     void shouldThrowResponseStatusExceptionWhenUpdatingNonExistingTodo() {
         TodoPutRequestBody requestBody = createTodoPutRequestBody();
@@ -187,4 +774,118 @@ public class TodoControllerIT {
                 .exchange()
                 .expectStatus().isNoContent();
     }
+
+    @Test
+    void shouldCreateTodosInBatch() {
+        User user = userRepository.save(createUser());
+
+        TodoBatchPostRequestBody requestBody = new TodoBatchPostRequestBody(List.of(
+                createTodoPostRequestBody(user),
+                new TodoPostRequestBody(user.getId(), "Buy Groceries", null)));
+
+        List<TodoResponseBody> response = restTestClient.post()
+                .uri("/todos/batch")
+                .body(requestBody)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(new ParameterizedTypeReference<List<TodoResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(2, response.size());
+        Assertions.assertEquals(2, todoRepository.count());
+    }
+
+    @Test
+    void shouldRejectEmptyBatch() {
+        restTestClient.post()
+                .uri("/todos/batch")
+                .body(new TodoBatchPostRequestBody(List.of()))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldUpdateTodosInBatch() {
+        User user = userRepository.save(createUser());
+        Todo todo1 = todoRepository.save(createTodo(user));
+        Todo todo2 = todoRepository.save(createSecondaryTodo(user));
+
+        TodoBatchPutRequestBody requestBody = new TodoBatchPutRequestBody(List.of(
+                new TodoBatchPutRequestBody.Item(todo1.getId(), "First", null, TodoStage.COMPLETED),
+                new TodoBatchPutRequestBody.Item(todo2.getId(), "Second", null, TodoStage.SUSPENDED)));
+
+        restTestClient.patch()
+                .uri("/todos/batch")
+                .body(requestBody)
+                .exchange()
+                .expectStatus().isOk();
+
+        Assertions.assertEquals(TodoStage.COMPLETED, todoRepository.findById(todo1.getId()).orElseThrow().getStage());
+        Assertions.assertEquals("Second", todoRepository.findById(todo2.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void shouldDeleteTodosInBatch() {
+        User user = userRepository.save(createUser());
+        Todo todo1 = todoRepository.save(createTodo(user));
+        Todo todo2 = todoRepository.save(createSecondaryTodo(user));
+
+        restTestClient.method(HttpMethod.DELETE)
+                .uri("/todos/batch")
+                .body(new TodoBatchDeleteRequestBody(List.of(todo1.getId(), todo2.getId())))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Assertions.assertEquals(0, todoRepository.count());
+    }
+
+    @Test
+    void shouldNegotiateBinaryPageFormats() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_CBOR, SMILE)) {
+            PageResponseBody<TodoResponseBody> response = restTestClient.get()
+                    .uri("/todos")
+                    .accept(mediaType)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentType(mediaType)
+                    .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                    .expectBody(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
+                    })
+                    .returnResult()
+                    .getResponseBody();
+
+            Assertions.assertNotNull(response);
+            Assertions.assertEquals(todo.getId(), response.content().get(0).id());
+            Assertions.assertEquals(todo.getTitle(), response.content().get(0).title());
+        }
+    }
+
+    @Test
+    void shouldCreateTodoFromBinaryRequestBody() {
+        User user = userRepository.save(createUser());
+
+        for (MediaType mediaType : List.of(MediaType.APPLICATION_CBOR, SMILE)) {
+            TodoResponseBody response = restTestClient.post()
+                    .uri("/todos")
+                    .contentType(mediaType)
+                    .accept(mediaType)
+                    .body(createTodoPostRequestBody(user))
+                    .exchange()
+                    .expectStatus().isCreated()
+                    .expectHeader().contentType(mediaType)
+                    .expectBody(TodoResponseBody.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            Assertions.assertNotNull(response);
+            Assertions.assertEquals(user.getId(), response.userId());
+        }
+        Assertions.assertEquals(2, todoRepository.count());
+    }
 }
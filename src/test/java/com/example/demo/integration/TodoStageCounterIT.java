@@ -0,0 +1,93 @@
+package com.example.demo.integration;
+
+import static com.example.demo.util.UserCreator.createUser;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
+import com.example.demo.domain.User;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.TodoStageCountRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.service.TodoStageCounter;
+
+/**
+ * Runs overlapping first writers at REPEATABLE READ, MySQL's default, where a
+ * transaction keeps reading the snapshot it took before waiting for a lock.
+ * As in {@link SchemaMigrationIT}, H2's MySQL mode stands in for MySQL, though
+ * its locking reads and updates still see the snapshot, so only the counters
+ * the first writer committed are checked.
+ */
+@ActiveProfiles("prod")
+@SpringBootTest(properties = {
+        "app.search.index-dir=",
+        "spring.datasource.url=jdbc:h2:mem:counters;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.properties.jakarta.persistence.database-major-version=8",
+        // H2 does not parse the row alias MySQL 8.0.19 added to ON DUPLICATE KEY UPDATE.
+        "spring.jpa.properties.jakarta.persistence.database-minor-version=0" })
+public class TodoStageCounterIT {
+
+    @Autowired
+    private TodoStageCounter stageCounter;
+
+    @Autowired
+    private TodoStageCountRepository countRepository;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate repeatableRead;
+
+    @BeforeEach
+    void setUp() {
+        countRepository.deleteAll();
+        todoRepository.deleteAll();
+        userRepository.deleteAll();
+        repeatableRead = new TransactionTemplate(transactionManager);
+        repeatableRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @Test
+    void shouldKeepCountersAnOverlappingWriterCommitted() {
+        User user = userRepository.save(createUser());
+        todoRepository.save(new Todo("Existing", null, user));
+
+        repeatableRead.executeWithoutResult(status -> {
+            // Takes this transaction's snapshot before the other writer starts.
+            Assertions.assertEquals(0, countRepository.countByUserId(user.getId()));
+
+            CompletableFuture.runAsync(() -> repeatableRead.executeWithoutResult(other -> {
+                stageCounter.initialize(user.getId());
+                todoRepository.save(new Todo("Concurrent", null, userRepository.getReferenceById(user.getId())));
+                stageCounter.adjust(user.getId(), TodoStage.NOT_STARTED, 1);
+            })).join();
+
+            stageCounter.initialize(user.getId());
+        });
+
+        Map<TodoStage, Long> counts = stageCounter.counts(user.getId());
+        Assertions.assertEquals(2L, counts.get(TodoStage.NOT_STARTED));
+        Assertions.assertEquals(2L, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+}
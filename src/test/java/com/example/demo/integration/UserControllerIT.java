@@ -5,9 +5,21 @@ import static com.example.demo.util.TodoCreator.createTodo;
 import static com.example.demo.util.UserCreator.createSecondaryUser;
 import static com.example.demo.util.UserCreator.createUser;
 import static com.example.demo.util.UserCreator.createUserPostRequestBody;
-
-import java.util.List;
-
+import static com.example.demo.util.UserCreator.createUserPutRequestBody;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,23 +27,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
 import org.springframework.boot.resttestclient.autoconfigure.AutoConfigureRestTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.client.RestTestClient;
 
 import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
 import com.example.demo.domain.User;
+import com.example.demo.dto.CursorPageResponseBody;
 import com.example.demo.dto.PageResponseBody;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.dto.TodoPutRequestBody;
 import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStagePatchRequestBody;
+import com.example.demo.dto.TodoStatsResponseBody;
 import com.example.demo.dto.UserPostRequestBody;
+import com.example.demo.dto.UserPurgeResponseBody;
+import com.example.demo.dto.UserPutRequestBody;
 import com.example.demo.dto.UserResponseBody;
 import com.example.demo.repository.TodoRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.PasswordHasher;
+
+import jakarta.persistence.EntityManagerFactory;
 
 @AutoConfigureTestDatabase
 @AutoConfigureRestTestClient
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.search.index-dir=")
 public class UserControllerIT {
 
+    @LocalServerPort
+    private int port;
+
     @Autowired
     private RestTestClient restTestClient;
 
@@ -41,6 +71,12 @@ public class UserControllerIT {
     @Autowired
     private TodoRepository todoRepository;
 
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     void setUp() {
         todoRepository.deleteAll();
@@ -81,6 +117,37 @@ public class UserControllerIT {
         Assertions.assertTrue(response.content().isEmpty());
     }
 
+    @Test
+    void shouldReturnUsersAfterCursor() {
+        userRepository.save(createUser());
+        User user2 = userRepository.save(createSecondaryUser());
+
+        CursorPageResponseBody<UserResponseBody> firstPage = restTestClient.get()
+                .uri("/users?after=&size=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageResponseBody<UserResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(firstPage);
+        Assertions.assertEquals(1, firstPage.content().size());
+
+        CursorPageResponseBody<UserResponseBody> secondPage = restTestClient.get()
+                .uri("/users?after={cursor}&size=1", firstPage.nextCursor())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<CursorPageResponseBody<UserResponseBody>>() {
+                })
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(secondPage);
+        Assertions.assertEquals(user2.getId(), secondPage.content().get(0).id());
+        Assertions.assertNull(secondPage.nextCursor());
+    }
+
     @Test
     void shouldReturnUserById() {
         User user = userRepository.save(createUser());
@@ -97,6 +164,95 @@ public class UserControllerIT {
         Assertions.assertEquals(user.getId(), response.id());
     }
 
+    @Test
+    void shouldUpdateUserWithSmileRequestAndResponseBodies() {
+        User user = userRepository.save(createUser());
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+
+        UserResponseBody response = restTestClient.put()
+                .uri("/users/{id}", user.getId())
+                .contentType(smile)
+                .accept(smile)
+                .body(createUserPutRequestBody())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(smile)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody(UserResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals("Updated User Name", response.name());
+        Assertions.assertEquals("updated@email.com", userRepository.findById(user.getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void shouldResolveUsersAndEmailLookupsFromSecondLevelCache() {
+        User user = userRepository.save(createUser());
+        entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear();
+
+        for (int i = 0; i < 2; i++) {
+            restTestClient.post()
+                    .uri("/todos")
+                    .body(new TodoPostRequestBody(user.getId(), "Todo " + i, null))
+                    .exchange()
+                    .expectStatus().isCreated();
+            Assertions.assertTrue(userRepository.existsByEmail(user.getEmail()));
+        }
+
+        restTestClient.get()
+                .uri("/actuator/hibernate")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.secondLevelCacheRegions.user.hitCount").isEqualTo(2)
+                .jsonPath("$.secondLevelCacheRegions.user.missCount").isEqualTo(0)
+                .jsonPath("$.secondLevelCacheRegions['user-queries'].putCount").isEqualTo(1)
+                .jsonPath("$.secondLevelCacheRegions['user-queries'].hitCount").isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeCachedUserWithoutQueryingItsVersion() {
+        User user = userRepository.save(createUser());
+        restTestClient.get().uri("/users/{id}", user.getId()).exchange().expectStatus().isOk();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        restTestClient.get()
+                .uri("/users/{id}", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"" + user.getVersion() + "-json\"");
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenUserETagMatches() {
+        User user = userRepository.save(createUser());
+
+        restTestClient.get()
+                .uri("/users/{id}", user.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + user.getVersion() + "-json\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenUpdatingUserWithStaleIfMatch() {
+        User user = userRepository.save(createUser());
+
+        restTestClient.put()
+                .uri("/users/{id}", user.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + (user.getVersion() + 1) + "\"")
+                .body(createUserPutRequestBody())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+    }
+
     @Test
     void shouldThrowResponseStatusExceptionWhenUserNotFound() {
         restTestClient.get()
@@ -120,6 +276,10 @@ public class UserControllerIT {
 
         Assertions.assertNotNull(response);
         Assertions.assertEquals(userPostRequestBody.name(), response.name());
+
+        String storedPassword = userRepository.findById(response.id()).orElseThrow().getPassword();
+        Assertions.assertNotEquals(userPostRequestBody.password(), storedPassword);
+        Assertions.assertTrue(passwordHasher.matches(userPostRequestBody.password(), storedPassword));
     }
 
     @Test
@@ -157,6 +317,27 @@ public class UserControllerIT {
         Assertions.assertEquals(userPostRequestBody.name(), response.name());
     }
 
+    @Test
+    void shouldNotServeStaleUserAfterUpdate() {
+        User user = userRepository.save(createUser());
+
+        restTestClient.get().uri("/users/{id}", user.getId()).exchange().expectStatus().isOk();
+
+        UserPutRequestBody requestBody = createUserPutRequestBody();
+        restTestClient.put().uri("/users/{id}", user.getId()).body(requestBody).exchange().expectStatus().isOk();
+
+        UserResponseBody response = restTestClient.get()
+                .uri("/users/{id}", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(requestBody.email(), response.email());
+    }
+
     @Test
     void shouldThrowResponseStatusExceptionWhenUpdatingUserWithDuplicatedEmail() {
         User user1 = userRepository.save(createUser());
@@ -193,6 +374,59 @@ public class UserControllerIT {
         Assertions.assertFalse(userRepository.findById(user.getId()).isPresent());
     }
 
+    @Test
+    void shouldDeleteUserWithTodos() {
+        User user = userRepository.save(createUser());
+        todoRepository.save(createTodo(user));
+        todoRepository.save(createSecondaryTodo(user));
+
+        restTestClient.delete()
+                .uri("/users/{id}", user.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Assertions.assertFalse(userRepository.existsById(user.getId()));
+        Assertions.assertEquals(0, todoRepository.count());
+    }
+
+    @Test
+    void shouldPurgeUserWithManyTodosInBackground() throws InterruptedException {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(createSecondaryUser());
+        todoRepository.save(createTodo(otherUser));
+        todoRepository.saveAll(Stream.generate(() -> createTodo(user)).limit(1001).toList());
+
+        restTestClient.delete()
+                .uri("/users/{id}", user.getId())
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().location("/users/" + user.getId() + "/purge");
+
+        UserPurgeResponseBody status = null;
+        for (int i = 0; i < 100; i++) {
+            status = restTestClient.get()
+                    .uri("/users/{id}/purge", user.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(UserPurgeResponseBody.class)
+                    .returnResult()
+                    .getResponseBody();
+            if (status.status() != UserPurgeResponseBody.Status.RUNNING) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+
+        Assertions.assertEquals(new UserPurgeResponseBody(user.getId(), UserPurgeResponseBody.Status.COMPLETED,
+                1001, null), status);
+        Assertions.assertFalse(userRepository.existsById(user.getId()));
+        Assertions.assertEquals(1, todoRepository.count());
+        restTestClient.get()
+                .uri("/users/{id}", user.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
     @Test
     void shouldReturnNoContentWhenDeletingNonExistingUser() {
         restTestClient.delete()
@@ -210,33 +444,315 @@ public class UserControllerIT {
         todoRepository.save(todo1);
         todoRepository.save(todo2);
 
-        List<TodoResponseBody> response = restTestClient.get()
+        PageResponseBody<TodoResponseBody> response = restTestClient.get()
                 .uri("/users/{id}/todos", user.getId())
                 .exchange()
                 .expectStatus().isOk()
-                .returnResult(new ParameterizedTypeReference<List<TodoResponseBody>>() {
+                .returnResult(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
                 })
                 .getResponseBody();
 
         Assertions.assertNotNull(response);
-        Assertions.assertEquals(2, response.size());
-        Assertions.assertEquals(todo1.getTitle(), response.get(0).title());
-        Assertions.assertEquals(todo2.getTitle(), response.get(1).title());
+        Assertions.assertEquals(2, response.totalElements());
+        Assertions.assertEquals(todo1.getTitle(), response.content().get(0).title());
+        Assertions.assertEquals(todo2.getTitle(), response.content().get(1).title());
+    }
+
+    @Test
+    void shouldReturnUserTodosFilteredByStage() {
+        User user = userRepository.save(createUser());
+        Todo todo1 = createTodo(user);
+        Todo todo2 = createSecondaryTodo(user);
+        todo2.setStage(TodoStage.COMPLETED);
+
+        todoRepository.save(todo1);
+        todoRepository.save(todo2);
+
+        PageResponseBody<TodoResponseBody> response = restTestClient.get()
+                .uri("/users/{id}/todos?stage=COMPLETED&size=1", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
+                })
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(1, response.totalElements());
+        Assertions.assertEquals(todo2.getId(), response.content().get(0).id());
     }
 
     @Test
     void shouldReturnEmptyListWhenUserHasNoTodos() {
         User user = userRepository.save(createUser());
 
-        List<TodoResponseBody> response = restTestClient.get()
+        PageResponseBody<TodoResponseBody> response = restTestClient.get()
                 .uri("/users/{id}/todos", user.getId())
                 .exchange()
                 .expectStatus().isOk()
-                .returnResult(new ParameterizedTypeReference<List<TodoResponseBody>>() {
+                .returnResult(new ParameterizedTypeReference<PageResponseBody<TodoResponseBody>>() {
                 })
                 .getResponseBody();
 
         Assertions.assertNotNull(response);
-        Assertions.assertTrue(response.isEmpty());
+        Assertions.assertTrue(response.content().isEmpty());
+    }
+
+    @Test
+    void shouldThrowResponseStatusExceptionWhenListingTodosOfUnknownUser() {
+        restTestClient.get()
+                .uri("/users/{id}/todos", 999L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldKeepTodoStageCountsInStepWithWrites() {
+        User user = userRepository.save(createUser());
+        TodoResponseBody first = createTodoThroughApi(user, "Buy groceries");
+        TodoResponseBody second = createTodoThroughApi(user, "Change password");
+        createTodoThroughApi(user, "Call the bank");
+
+        restTestClient.patch()
+                .uri("/todos/{id}/stage", first.id())
+                .body(new TodoStagePatchRequestBody(TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isNoContent();
+        restTestClient.put()
+                .uri("/todos/{id}", second.id())
+                .body(new TodoPutRequestBody(second.title(), null, TodoStage.IN_PROGRESS))
+                .exchange()
+                .expectStatus().isOk();
+        restTestClient.delete().uri("/todos/{id}", first.id()).exchange().expectStatus().isNoContent();
+
+        TodoStatsResponseBody stats = getTodoStats(user);
+
+        Assertions.assertEquals(Map.of(TodoStage.NOT_STARTED, 1L, TodoStage.IN_PROGRESS, 1L,
+                TodoStage.SUSPENDED, 0L, TodoStage.COMPLETED, 0L), stats.stages());
+        Assertions.assertEquals(2, stats.total());
+    }
+
+    @Test
+    void shouldBackfillTodoStageCountsForExistingTodos() {
+        User user = userRepository.save(createUser());
+        todoRepository.save(createTodo(user));
+        Todo completed = createSecondaryTodo(user);
+        completed.setStage(TodoStage.COMPLETED);
+        todoRepository.save(completed);
+
+        TodoStatsResponseBody stats = getTodoStats(user);
+
+        Assertions.assertEquals(Map.of(TodoStage.NOT_STARTED, 1L, TodoStage.IN_PROGRESS, 0L,
+                TodoStage.SUSPENDED, 0L, TodoStage.COMPLETED, 1L), stats.stages());
+    }
+
+    @Test
+    void shouldCountStageChangeByPutAsFirstWriteOfUserWithoutCounters() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.put()
+                .uri("/todos/{id}", todo.getId())
+                .body(new TodoPutRequestBody(todo.getTitle(), null, TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isOk();
+
+        Assertions.assertEquals(Map.of(TodoStage.NOT_STARTED, 0L, TodoStage.IN_PROGRESS, 0L,
+                TodoStage.SUSPENDED, 0L, TodoStage.COMPLETED, 1L), getTodoStats(user).stages());
+    }
+
+    @Test
+    void shouldCountStageChangeByPatchAsFirstWriteOfUserWithoutCounters() {
+        User user = userRepository.save(createUser());
+        Todo todo = todoRepository.save(createTodo(user));
+
+        restTestClient.patch()
+                .uri("/todos/{id}/stage", todo.getId())
+                .body(new TodoStagePatchRequestBody(TodoStage.COMPLETED))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Assertions.assertEquals(Map.of(TodoStage.NOT_STARTED, 0L, TodoStage.IN_PROGRESS, 0L,
+                TodoStage.SUSPENDED, 0L, TodoStage.COMPLETED, 1L), getTodoStats(user).stages());
+    }
+
+    @Test
+    void shouldThrowResponseStatusExceptionWhenGettingTodoStatsOfUnknownUser() {
+        restTestClient.get()
+                .uri("/users/{id}/todos/stats", 999L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldExportUserTodosAsNdjson() {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(createSecondaryUser());
+        Todo todo1 = todoRepository.save(createTodo(user));
+        Todo todo2 = todoRepository.save(createSecondaryTodo(user));
+        todoRepository.save(createTodo(otherUser));
+
+        String response = restTestClient.get()
+                .uri("/users/{id}/todos/export", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertNotNull(response);
+        String[] lines = response.split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[0].contains("\"id\":" + todo1.getId()));
+        Assertions.assertTrue(lines[1].contains("\"id\":" + todo2.getId()));
+    }
+
+    @Test
+    void shouldThrowResponseStatusExceptionWhenExportingTodosOfUnknownUser() {
+        restTestClient.get()
+                .uri("/users/{id}/todos/export", 999L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldStreamTodoChangesOfUser() throws Exception {
+        User user = userRepository.save(createUser());
+        User otherUser = userRepository.save(createSecondaryUser());
+
+        try (TodoFeedConnection feed = openTodoFeed(user, null)) {
+            createTodoThroughApi(otherUser, "Not mine");
+            TodoResponseBody todo = createTodoThroughApi(user, "Buy groceries");
+            restTestClient.delete()
+                    .uri("/todos/{id}", todo.id())
+                    .exchange()
+                    .expectStatus().isNoContent();
+
+            FeedEvent changed = feed.next();
+            Assertions.assertEquals("changed", changed.name());
+            Assertions.assertTrue(changed.data().contains("\"title\":\"Buy groceries\""));
+
+            FeedEvent removed = feed.next();
+            Assertions.assertEquals("removed", removed.name());
+            Assertions.assertTrue(removed.data().contains("\"id\":" + todo.id()));
+        }
+    }
+
+    @Test
+    void shouldResumeTodoFeedFromLastEventId() throws Exception {
+        User user = userRepository.save(createUser());
+
+        FeedEvent first;
+        try (TodoFeedConnection feed = openTodoFeed(user, null)) {
+            createTodoThroughApi(user, "First");
+            first = feed.next();
+        }
+        createTodoThroughApi(user, "Second");
+
+        try (TodoFeedConnection feed = openTodoFeed(user, first.id())) {
+            FeedEvent missed = feed.next();
+            Assertions.assertEquals("changed", missed.name());
+            Assertions.assertTrue(missed.data().contains("\"title\":\"Second\""));
+        }
+    }
+
+    @Test
+    void shouldAskClientToReloadWhenLastEventIdIsUnknown() throws Exception {
+        User user = userRepository.save(createUser());
+
+        try (TodoFeedConnection feed = openTodoFeed(user, "stale-42")) {
+            Assertions.assertEquals("reset", feed.next().name());
+        }
+    }
+
+    @Test
+    void shouldThrowResponseStatusExceptionWhenStreamingTodosOfUnknownUser() {
+        restTestClient.get()
+                .uri("/users/{id}/todos/events", 999L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private TodoResponseBody createTodoThroughApi(User user, String title) {
+        return restTestClient.post()
+                .uri("/todos")
+                .body(new TodoPostRequestBody(user.getId(), title, null))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(TodoResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private TodoStatsResponseBody getTodoStats(User user) {
+        return restTestClient.get()
+                .uri("/users/{id}/todos/stats", user.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TodoStatsResponseBody.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private TodoFeedConnection openTodoFeed(User user, String lastEventId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/users/" + user.getId() + "/todos/events"))
+                .header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+
+        HttpResponse<Stream<String>> response = HttpClient.newHttpClient()
+                .send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        Assertions.assertEquals(HttpStatus.OK.value(), response.statusCode());
+        return new TodoFeedConnection(response.body());
+    }
+
+    private record FeedEvent(String id, String name, String data) {
+    }
+
+    /**
+     * Reads server-sent events off an open connection on a background thread.
+     */
+    private static final class TodoFeedConnection implements AutoCloseable {
+
+        private final BlockingQueue<FeedEvent> events = new LinkedBlockingQueue<>();
+        private final Stream<String> lines;
+
+        private TodoFeedConnection(Stream<String> lines) {
+            this.lines = lines;
+            Thread reader = new Thread(this::read);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        private FeedEvent next() throws InterruptedException {
+            FeedEvent event = events.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(event, "No feed event within 5 seconds");
+            return event;
+        }
+
+        private void read() {
+            Map<String, String> fields = new HashMap<>();
+            try {
+                lines.forEach(line -> {
+                    if (line.isEmpty()) {
+                        if (fields.containsKey("data")) {
+                            events.add(new FeedEvent(fields.get("id"), fields.get("event"), fields.get("data")));
+                        }
+                        fields.clear();
+                    } else if (line.contains(":")) {
+                        fields.put(line.substring(0, line.indexOf(':')), line.substring(line.indexOf(':') + 1));
+                    }
+                });
+            } catch (RuntimeException e) {
+                // The connection was closed.
+            }
+        }
+
+        @Override
+        public void close() {
+            lines.close();
+        }
     }
-}
\ No newline at end of file
+}
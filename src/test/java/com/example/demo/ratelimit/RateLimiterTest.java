@@ -0,0 +1,67 @@
+package com.example.demo.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(-5 * SECOND);
+    private final RateLimiter rateLimiter = new RateLimiter(100, clock::get);
+
+    @Test
+    void shouldAllowBurstThenRejectWithTimeUntilNextToken() {
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(0, rateLimiter.tryAcquire("client", SECOND, 3));
+        }
+
+        Assertions.assertEquals(SECOND, rateLimiter.tryAcquire("client", SECOND, 3));
+    }
+
+    @Test
+    void shouldRefillOneTokenPerInterval() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("client", SECOND, 3);
+        }
+
+        clock.addAndGet(SECOND);
+
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("client", SECOND, 3));
+        Assertions.assertTrue(rateLimiter.tryAcquire("client", SECOND, 3) > 0);
+    }
+
+    @Test
+    void shouldKeepSeparateBucketsPerKey() {
+        rateLimiter.tryAcquire("client", SECOND, 1);
+
+        Assertions.assertTrue(rateLimiter.tryAcquire("client", SECOND, 1) > 0);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("other", SECOND, 1));
+    }
+
+    @Test
+    void shouldEvictOnlyBucketsIdleForLongerThanTimeout() {
+        rateLimiter.tryAcquire("idle", SECOND, 1);
+        clock.addAndGet(10 * SECOND);
+        rateLimiter.tryAcquire("busy", SECOND, 1);
+
+        rateLimiter.evictIdle(5 * SECOND);
+
+        Assertions.assertEquals(1, rateLimiter.size());
+        Assertions.assertTrue(rateLimiter.tryAcquire("busy", SECOND, 1) > 0);
+    }
+
+    @Test
+    void shouldBoundNumberOfBuckets() {
+        RateLimiter bounded = new RateLimiter(10, clock::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            bounded.tryAcquire("client-" + i, SECOND, 1);
+        }
+
+        Assertions.assertTrue(bounded.size() <= 10);
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.demo.repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import com.example.demo.domain.Todo;
 import com.example.demo.domain.User;
+import com.example.demo.dto.TodoResponseBody;
 
 @DataJpaTest
 public class TodoRepositoryTest {
@@ -46,7 +52,51 @@ public class TodoRepositoryTest {
         Todo todo = createTodo(null);
 
         Assertions.assertThrows(DataIntegrityViolationException.class, () -> {
-            todoRepository.save(todo);
+            todoRepository.saveAndFlush(todo);
         });
     }
+
+    @Test
+    void shouldProjectTodosIntoResponseBodies() {
+        User user = createUser();
+        Todo todo = createTodo(user);
+
+        userRepository.save(user);
+        todoRepository.save(todo);
+
+        Page<TodoResponseBody> page = todoRepository.findAllResponseBodies(PageRequest.of(0, 10));
+
+        Assertions.assertEquals(1, page.getTotalElements());
+        Assertions.assertEquals(new TodoResponseBody(todo.getId(), todo.getTitle(), todo.getDescription(),
+                todo.getStage(), user.getId(), todo.getVersion()), page.getContent().get(0));
+    }
+
+    @Test
+    void shouldStreamUserTodosInIdOrder() {
+        User user = createUser();
+        Todo todo1 = createTodo(user);
+        Todo todo2 = createTodo(user);
+
+        userRepository.save(user);
+        todoRepository.save(todo1);
+        todoRepository.save(todo2);
+
+        try (Stream<Todo> todos = todoRepository.streamByUserId(user.getId())) {
+            Assertions.assertEquals(List.of(todo1.getId(), todo2.getId()), todos.map(Todo::getId).toList());
+        }
+    }
+
+    @Test
+    void shouldMatchTitlePrefixLiterally() {
+        User user = userRepository.save(createUser());
+        Todo discount = new Todo("50% off", null, user);
+        Todo other = new Todo("500 emails", null, user);
+        todoRepository.save(discount);
+        todoRepository.save(other);
+
+        List<Todo> todos = todoRepository.findAll(TodoSpecifications.titleStartsWith("50%")
+                .and(TodoSpecifications.hasUserId(user.getId())));
+
+        Assertions.assertEquals(List.of(discount.getId()), todos.stream().map(Todo::getId).toList());
+    }
 }
@@ -0,0 +1,112 @@
+package com.example.demo.search;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.dto.TodoResponseBody;
+
+public class TodoSearchIndexTest {
+
+    private TodoSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        searchIndex = new TodoSearchIndex("");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        searchIndex.destroy();
+    }
+
+    @Test
+    void shouldRankTitleMatchesAboveDescriptionMatches() {
+        searchIndex.index(List.of(
+                todo(1L, 1L, "Call the bank", "About the groceries budget"),
+                todo(2L, 1L, "Buy groceries", "Milk and eggs"),
+                todo(3L, 1L, "Change password", null)));
+        searchIndex.refresh();
+
+        Page<TodoResponseBody> page = searchIndex.search(1L, "Groceries", PageRequest.of(0, 10));
+
+        Assertions.assertEquals(2, page.getTotalElements());
+        Assertions.assertEquals(List.of(2L, 1L), page.getContent().stream().map(TodoResponseBody::id).toList());
+        Assertions.assertEquals(todo(2L, 1L, "Buy groceries", "Milk and eggs"), page.getContent().get(0));
+    }
+
+    @Test
+    void shouldOnlySearchTheGivenUsersTodos() {
+        searchIndex.index(List.of(
+                todo(1L, 1L, "Buy groceries", null),
+                todo(2L, 2L, "Buy groceries", null)));
+        searchIndex.refresh();
+
+        Page<TodoResponseBody> page = searchIndex.search(2L, "groceries", PageRequest.of(0, 10));
+
+        Assertions.assertEquals(List.of(2L), page.getContent().stream().map(TodoResponseBody::id).toList());
+    }
+
+    @Test
+    void shouldPageThroughHitsAndForgetDeletedTodos() {
+        searchIndex.index(List.of(
+                todo(1L, 1L, "Read book one", null),
+                todo(2L, 1L, "Read book two", null),
+                todo(3L, 1L, "Read book three", null)));
+        searchIndex.delete(List.of(3L));
+        searchIndex.refresh();
+
+        Page<TodoResponseBody> page = searchIndex.search(1L, "book", PageRequest.of(1, 1));
+
+        Assertions.assertEquals(2, page.getTotalElements());
+        Assertions.assertEquals(1, page.getContent().size());
+        Assertions.assertEquals(2, searchIndex.size());
+    }
+
+    @Test
+    void shouldRejectPagesBeyondTheResultWindow() {
+        Assertions.assertThrows(ResponseStatusException.class,
+                () -> searchIndex.search(1L, "book", PageRequest.of(TodoSearchIndex.MAX_RESULT_WINDOW, 1)));
+    }
+
+    @Test
+    void shouldServeLiveIndexUntilStagedIndexReplacesIt(@TempDir Path dir) throws IOException {
+        TodoSearchIndex onDisk = new TodoSearchIndex(dir.resolve("index").toString());
+        try {
+            onDisk.index(List.of(todo(1L, 1L, "Buy groceries", null)));
+            onDisk.refresh();
+
+            try (TodoSearchIndex.Staging staging = onDisk.stage()) {
+                staging.index(List.of(todo(2L, 1L, "Buy more groceries", null)));
+                onDisk.refresh();
+                Assertions.assertEquals(List.of(1L), ids(onDisk.search(1L, "groceries", PageRequest.of(0, 10))));
+
+                onDisk.replaceWith(staging);
+                onDisk.refresh();
+            }
+
+            Assertions.assertEquals(List.of(2L), ids(onDisk.search(1L, "groceries", PageRequest.of(0, 10))));
+            Assertions.assertFalse(Files.exists(dir.resolve("index.rebuild")));
+        } finally {
+            onDisk.destroy();
+        }
+    }
+
+    private static List<Long> ids(Page<TodoResponseBody> page) {
+        return page.getContent().stream().map(TodoResponseBody::id).toList();
+    }
+
+    private static TodoResponseBody todo(Long id, Long userId, String title, String description) {
+        return new TodoResponseBody(id, title, description, "NOT_STARTED", userId, 0L);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.search;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.service.TodoChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+public class TodoSearchIndexerTest {
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    private TodoSearchIndex searchIndex;
+
+    private TodoSearchIndexer searchIndexer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        searchIndex = new TodoSearchIndex("");
+        searchIndexer = new TodoSearchIndexer(todoRepository, searchIndex, 10, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        searchIndexer.destroy();
+        searchIndex.destroy();
+    }
+
+    @Test
+    void shouldReapplyTodosChangedWhileRebuilding() {
+        TodoResponseBody stale = todo(1L, "Buy groceries");
+        TodoResponseBody current = todo(1L, "Call the bank");
+        Mockito.when(todoRepository.findResponseBodiesAfter(ArgumentMatchers.eq(0L), ArgumentMatchers.any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    searchIndexer.onTodoChanged(new TodoChangedEvent(List.of(1L)));
+                    return List.of(stale);
+                });
+        Mockito.when(todoRepository.findResponseBodiesByIdIn(List.of(1L))).thenReturn(List.of(current));
+
+        Assertions.assertEquals(1, searchIndexer.rebuild());
+
+        Assertions.assertEquals(0, searchIndex.search(1L, "groceries", PageRequest.of(0, 10)).getTotalElements());
+        Assertions.assertEquals(List.of(current), searchIndex.search(1L, "bank", PageRequest.of(0, 10)).getContent());
+    }
+
+    private static TodoResponseBody todo(Long id, String title) {
+        return new TodoResponseBody(id, title, null, "NOT_STARTED", 1L, 0L);
+    }
+}
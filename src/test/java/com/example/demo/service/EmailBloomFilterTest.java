@@ -0,0 +1,57 @@
+package com.example.demo.service;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailBloomFilterTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    void shouldReportEveryEmailAsPossiblyPresentUntilWarmedUp() {
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, 1000, 0.01);
+
+        Assertions.assertFalse(filter.isReady());
+        Assertions.assertTrue(filter.mightContain("nobody@mail.com"));
+    }
+
+    @Test
+    void shouldContainWarmedAndAddedEmails() {
+        Mockito.when(userRepository.streamAllEmails()).thenReturn(Stream.of("will@mail.com", "john@mail.com"));
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, 1000, 0.01);
+
+        filter.warmUp();
+        filter.put("new@mail.com");
+
+        Assertions.assertTrue(filter.isReady());
+        Assertions.assertTrue(filter.mightContain("will@mail.com"));
+        Assertions.assertTrue(filter.mightContain("WILL@mail.com"));
+        Assertions.assertTrue(filter.mightContain("john@mail.com"));
+        Assertions.assertTrue(filter.mightContain("new@mail.com"));
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearConfiguredRate() {
+        Mockito.when(userRepository.streamAllEmails())
+                .thenReturn(IntStream.range(0, 10_000).mapToObj(i -> "user" + i + "@mail.com"));
+        EmailBloomFilter filter = new EmailBloomFilter(userRepository, 10_000, 0.01);
+        filter.warmUp();
+
+        long falsePositives = IntStream.range(0, 10_000)
+                .filter(i -> filter.mightContain("other" + i + "@mail.com"))
+                .count();
+
+        Assertions.assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordHasherTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PasswordHasher passwordHasher = new PasswordHasher(meterRegistry, 4, 1, 10);
+
+    @AfterEach
+    void tearDown() {
+        passwordHasher.destroy();
+    }
+
+    @Test
+    void shouldHashPasswordWithBcrypt() {
+        String hash = passwordHasher.hash("secret");
+
+        Assertions.assertTrue(hash.startsWith("$2a$04$"));
+        Assertions.assertTrue(passwordHasher.matches("secret", hash));
+        Assertions.assertFalse(passwordHasher.matches("wrong", hash));
+    }
+
+    @Test
+    void shouldRecordQueueAndHashTimes() {
+        passwordHasher.hash("secret");
+
+        Assertions.assertEquals(1, meterRegistry.get("app.passwords.queue").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get("app.passwords.hash").tag("strength", "4").timer().count());
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import com.example.demo.repository.TodoRepository;
+import com.example.demo.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class RowCountCacheTest {
+
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private RowCountCache rowCountCache;
+
+    @Test
+    void shouldCountOnFirstUseOnly() {
+        Mockito.when(todoRepository.count()).thenReturn(42L);
+
+        Assertions.assertEquals(42L, rowCountCache.todos());
+        Assertions.assertEquals(42L, rowCountCache.todos());
+
+        Mockito.verify(todoRepository, Mockito.times(1)).count();
+    }
+
+    @Test
+    void shouldRefreshOnlyCountsInUse() {
+        Mockito.when(todoRepository.count()).thenReturn(42L, 43L);
+
+        rowCountCache.todos();
+        rowCountCache.refresh();
+
+        Assertions.assertEquals(43L, rowCountCache.todos());
+        Mockito.verify(userRepository, Mockito.never()).count();
+    }
+
+    @Test
+    void shouldNeverReportLessThanTheSliceHasSeen() {
+        var slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(3, 2), true);
+
+        var page = RowCountCache.withEstimatedTotal(slice, 0);
+
+        Assertions.assertEquals(9, page.getTotalElements());
+        Assertions.assertEquals(List.of("a", "b"), page.getContent());
+    }
+
+    @Test
+    void shouldUseEstimatedTotalWhenLarger() {
+        var slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true);
+
+        var page = RowCountCache.withEstimatedTotal(slice, 100);
+
+        Assertions.assertEquals(100, page.getTotalElements());
+        Assertions.assertEquals(50, page.getTotalPages());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.dto.TodoIngestResponseBody;
+import com.example.demo.dto.TodoPostRequestBody;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class TodoIngestQueueTest {
+
+    @Mock
+    private TodoService todoService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldRejectWhenQueueIsFull() {
+        TodoIngestQueue queue = queue(1, TodoIngestQueue.Overflow.REJECT);
+
+        queue.submit(todo("First"));
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> queue.submit(todo("Second")));
+
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        Assertions.assertEquals(1, meterRegistry.get("app.todos.ingest.queue.depth").gauge().value());
+        Assertions.assertEquals(1, meterRegistry.get("app.todos.ingest.rejected").counter().count());
+    }
+
+    @Test
+    void shouldRejectAfterBlockTimeoutWhenQueueIsFull() {
+        TodoIngestQueue queue = queue(1, TodoIngestQueue.Overflow.BLOCK);
+
+        queue.submit(todo("First"));
+
+        Assertions.assertThrows(ResponseStatusException.class, () -> queue.submit(todo("Second")));
+    }
+
+    @Test
+    void shouldWriteQueuedTodosInOneBatchOnStop() {
+        Mockito.when(userRepository.findIdsByIdIn(ArgumentMatchers.anyCollection())).thenReturn(List.of(1L));
+        Mockito.when(todoService.saveAll(ArgumentMatchers.anyList())).thenReturn(List.of(
+                new TodoResponseBody(10L, "First", null, "NOT_STARTED", 1L, 0L),
+                new TodoResponseBody(11L, "Second", null, "NOT_STARTED", 1L, 0L)));
+        TodoIngestQueue queue = queue(10, TodoIngestQueue.Overflow.REJECT);
+
+        TodoIngestResponseBody first = queue.submit(todo("First"));
+        TodoIngestResponseBody second = queue.submit(todo("Second"));
+        TodoIngestResponseBody unknownUser = queue.submit(new TodoPostRequestBody(2L, "Third", null));
+        queue.start();
+        queue.stop();
+
+        Mockito.verify(todoService).saveAll(List.of(todo("First"), todo("Second")));
+        Assertions.assertEquals(10L, queue.status(first.trackingId()).todoId());
+        Assertions.assertEquals(11L, queue.status(second.trackingId()).todoId());
+        Assertions.assertEquals(TodoIngestResponseBody.Status.FAILED, queue.status(unknownUser.trackingId()).status());
+        Assertions.assertEquals(1, meterRegistry.get("app.todos.ingest.batch.size").summary().count());
+        Assertions.assertEquals(3, meterRegistry.get("app.todos.ingest.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void shouldMarkBatchAsFailedWhenSaveFails() {
+        Mockito.when(userRepository.findIdsByIdIn(ArgumentMatchers.anyCollection())).thenReturn(List.of(1L));
+        Mockito.when(todoService.saveAll(ArgumentMatchers.anyList())).thenThrow(new IllegalStateException("down"));
+        TodoIngestQueue queue = queue(10, TodoIngestQueue.Overflow.REJECT);
+
+        TodoIngestResponseBody accepted = queue.submit(todo("First"));
+        queue.start();
+        queue.stop();
+
+        Assertions.assertEquals(TodoIngestResponseBody.Status.FAILED, queue.status(accepted.trackingId()).status());
+    }
+
+    @Test
+    void shouldWriteTodosOneAtATimeWhenBatchIsRejected() {
+        Mockito.when(userRepository.findIdsByIdIn(ArgumentMatchers.anyCollection())).thenReturn(List.of(1L));
+        Mockito.when(todoService.saveAll(ArgumentMatchers.anyList()))
+                .thenThrow(new DataIntegrityViolationException("Data too long"));
+        Mockito.when(todoService.save(todo("First")))
+                .thenReturn(new TodoResponseBody(10L, "First", null, "NOT_STARTED", 1L, 0L));
+        Mockito.when(todoService.save(todo("Second"))).thenThrow(new DataIntegrityViolationException("Data too long"));
+        TodoIngestQueue queue = queue(10, TodoIngestQueue.Overflow.REJECT);
+
+        TodoIngestResponseBody first = queue.submit(todo("First"));
+        TodoIngestResponseBody second = queue.submit(todo("Second"));
+        queue.start();
+        queue.stop();
+
+        Assertions.assertEquals(10L, queue.status(first.trackingId()).todoId());
+        Assertions.assertEquals(TodoIngestResponseBody.Status.FAILED, queue.status(second.trackingId()).status());
+    }
+
+    @Test
+    void shouldRejectSubmissionsAfterStop() {
+        TodoIngestQueue queue = queue(10, TodoIngestQueue.Overflow.REJECT);
+        queue.start();
+        queue.stop();
+
+        Assertions.assertThrows(ResponseStatusException.class, () -> queue.submit(todo("First")));
+    }
+
+    private TodoIngestQueue queue(int capacity, TodoIngestQueue.Overflow overflow) {
+        return new TodoIngestQueue(todoService, userRepository, meterRegistry, capacity, 100,
+                Duration.ofSeconds(10), overflow, Duration.ofMillis(50), Duration.ofSeconds(5));
+    }
+
+    private static TodoPostRequestBody todo(String title) {
+        return new TodoPostRequestBody(1L, title, null);
+    }
+}
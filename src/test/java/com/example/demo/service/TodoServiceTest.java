@@ -4,28 +4,42 @@ import static com.example.demo.util.TodoCreator.*;
 import static com.example.demo.util.UserCreator.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.domain.Todo;
+import com.example.demo.domain.TodoStage;
 import com.example.demo.domain.User;
+import com.example.demo.dto.TodoBatchPutRequestBody;
+import com.example.demo.dto.TodoPatchRequestBody;
 import com.example.demo.dto.TodoPostRequestBody;
 import com.example.demo.dto.TodoPutRequestBody;
 import com.example.demo.dto.TodoResponseBody;
 import com.example.demo.repository.TodoRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.search.TodoSearchIndex;
 
 @ExtendWith(MockitoExtension.class)
 public class TodoServiceTest {
@@ -39,6 +53,21 @@ public class TodoServiceTest {
     @Mock
     private TodoMapper todoMapper;
 
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private RowCountCache rowCountCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TodoSearchIndex searchIndex;
+
+    @Mock
+    private TodoStageCounter stageCounter;
+
     @InjectMocks
     private TodoService todoService;
 
@@ -52,11 +81,9 @@ public class TodoServiceTest {
         TodoResponseBody response2 = createTodoResponseBody(todo2);
 
         Pageable pageable = PageRequest.of(0, 10);
-        Page<Todo> page = new PageImpl<>(List.of(todo1, todo2), pageable, 2);
+        Page<TodoResponseBody> page = new PageImpl<>(List.of(response1, response2), pageable, 2);
 
-        Mockito.when(todoRepository.findAll(pageable)).thenReturn(page);
-        Mockito.when(todoMapper.toTodoResponseBody(todo1)).thenReturn(response1);
-        Mockito.when(todoMapper.toTodoResponseBody(todo2)).thenReturn(response2);
+        Mockito.when(todoRepository.findAllResponseBodies(pageable)).thenReturn(page);
 
         var result = todoService.list(pageable);
 
@@ -65,12 +92,13 @@ public class TodoServiceTest {
         Assertions.assertEquals(2, result.getTotalElements());
         Assertions.assertTrue(result.getContent().contains(response1));
         Assertions.assertTrue(result.getContent().contains(response2));
+        Mockito.verifyNoInteractions(todoMapper);
     }
 
     @Test
     void shouldReturnEmptyListWhenNoTodos() {
         Pageable pageable = PageRequest.of(0, 10);
-        Mockito.when(todoRepository.findAll(pageable)).thenReturn(Page.empty());
+        Mockito.when(todoRepository.findAllResponseBodies(pageable)).thenReturn(Page.empty());
 
         var result = todoService.list(pageable);
 
@@ -80,10 +108,84 @@ public class TodoServiceTest {
         Assertions.assertTrue(result.getContent().isEmpty());
     }
 
+    @Test
+    void shouldReturnSliceWithoutCounting() {
+        Pageable pageable = PageRequest.of(0, 1);
+        TodoResponseBody response = createTodoResponseBody(createTodo(createUser()));
+
+        Mockito.when(todoRepository.findResponseBodySlice(pageable))
+                .thenReturn(new SliceImpl<>(List.of(response), pageable, true));
+
+        var result = todoService.listSlice(pageable);
+
+        Assertions.assertTrue(result.hasNext());
+        Mockito.verify(todoRepository, Mockito.never()).count();
+        Mockito.verify(todoRepository, Mockito.never()).findAllResponseBodies(pageable);
+    }
+
+    @Test
+    void shouldReturnPageWithEstimatedTotal() {
+        Pageable pageable = PageRequest.of(0, 1);
+        TodoResponseBody response = createTodoResponseBody(createTodo(createUser()));
+
+        Mockito.when(todoRepository.findResponseBodySlice(pageable))
+                .thenReturn(new SliceImpl<>(List.of(response), pageable, true));
+        Mockito.when(rowCountCache.todos()).thenReturn(1_000L);
+
+        var result = todoService.listWithEstimatedTotal(pageable);
+
+        Assertions.assertEquals(1_000L, result.getTotalElements());
+        Mockito.verify(todoRepository, Mockito.never()).count();
+    }
+
+    @Test
+    void shouldReturnFirstCursorPageWithNextCursor() {
+        User user = createUser();
+        Todo todo1 = createTodo(user);
+        Todo todo2 = createSecondaryTodo(user);
+        todo1.setId(1L);
+        todo2.setId(2L);
+
+        TodoResponseBody response1 = createTodoResponseBody(todo1);
+        TodoResponseBody response2 = createTodoResponseBody(todo2);
+
+        Mockito.when(todoRepository.findResponseBodiesAfter(0L, Limit.of(2)))
+                .thenReturn(List.of(response1, response2));
+
+        var result = todoService.listAfter("", 1);
+
+        Assertions.assertEquals(List.of(response1), result.content());
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals(CursorCodec.encode(1L), result.nextCursor());
+    }
+
+    @Test
+    void shouldReturnLastCursorPageWithoutNextCursor() {
+        User user = createUser();
+        Todo todo = createTodo(user);
+        todo.setId(2L);
+
+        TodoResponseBody response = createTodoResponseBody(todo);
+
+        Mockito.when(todoRepository.findResponseBodiesAfter(1L, Limit.of(11)))
+                .thenReturn(List.of(response));
+
+        var result = todoService.listAfter(CursorCodec.encode(1L), 10);
+
+        Assertions.assertEquals(List.of(response), result.content());
+        Assertions.assertNull(result.nextCursor());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCursorIsInvalid() {
+        Assertions.assertThrows(ResponseStatusException.class, () -> todoService.listAfter("not-a-cursor", 10));
+    }
+
     @Test
     void shouldReturnSavedTodo() {
         User user = createUser();
         Todo todo = createTodo(user);
+        todo.setId(1L);
         TodoPostRequestBody todoRequest = createTodoPostRequestBody(user);
         TodoResponseBody expectedResponse = createTodoResponseBody(todo);
 
@@ -99,6 +201,7 @@ public class TodoServiceTest {
         Assertions.assertEquals(expectedResponse, result);
 
         Mockito.verify(todoRepository).save(Mockito.any(Todo.class));
+        Mockito.verify(eventPublisher).publishEvent(new TodoChangedEvent(List.of(1L)));
     }
 
     @Test
@@ -135,8 +238,17 @@ public class TodoServiceTest {
 
     @Test
     void shouldRemoveTodo() {
+        User user = createUser();
+        user.setId(1L);
+        Todo todo = createTodo(user);
+        todo.setId(1L);
+        Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.of(todo));
+
         todoService.remove(1L);
-        Mockito.verify(todoRepository).deleteById(1L);
+
+        Mockito.verify(todoRepository).delete(todo);
+        Mockito.verify(stageCounter).adjust(1L, TodoStage.NOT_STARTED, -1);
+        Mockito.verify(eventPublisher).publishEvent(new TodoChangedEvent(List.of(1L), Map.of(1L, 1L)));
     }
 
     @Test
@@ -147,12 +259,12 @@ public class TodoServiceTest {
         TodoResponseBody expectedResponse = createTodoResponseBody(todo);
 
         Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.of(todo));
-        Mockito.when(todoRepository.save(Mockito.any(Todo.class))).thenReturn(todo);
+        Mockito.when(todoRepository.saveAndFlush(Mockito.any(Todo.class))).thenReturn(todo);
         Mockito.when(todoMapper.toTodoResponseBody(Mockito.any(Todo.class))).thenReturn(expectedResponse);
 
-        var result = todoService.update(1L, todoRequest);
+        var result = todoService.update(1L, todoRequest, null);
 
-        Mockito.verify(todoRepository).save(Mockito.any(Todo.class));
+        Mockito.verify(todoRepository).saveAndFlush(Mockito.any(Todo.class));
 
         Assertions.assertNotNull(result);
         Assertions.assertInstanceOf(TodoResponseBody.class, result);
@@ -160,11 +272,26 @@ public class TodoServiceTest {
         Assertions.assertEquals(expectedResponse, result);
     }
 
+    @Test
+    void shouldNotUpdateWhenTodoVersionDoesNotMatch() {
+        Todo todo = createTodo(createUser());
+        todo.setVersion(2L);
+        TodoPutRequestBody todoRequest = createTodoPutRequestBody();
+
+        Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.of(todo));
+
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> todoService.update(1L, todoRequest, 1L));
+
+        Assertions.assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatusCode());
+        Mockito.verify(todoRepository, Mockito.never()).save(Mockito.any(Todo.class));
+    }
+
     @Test
     void shouldNotUpdateWhenTodoNotFound() {
         TodoPutRequestBody todoRequest = createTodoPutRequestBody();
         Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.empty());
-        Assertions.assertThrows(ResponseStatusException.class, () -> todoService.update(1L, todoRequest));
+        Assertions.assertThrows(ResponseStatusException.class, () -> todoService.update(1L, todoRequest, null));
     }
 
     @Test
@@ -175,12 +302,12 @@ public class TodoServiceTest {
         TodoResponseBody expectedResponse = createTodoResponseBody(todo);
 
         Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.of(todo));
-        Mockito.when(todoRepository.save(Mockito.any(Todo.class))).thenReturn(todo);
+        Mockito.when(todoRepository.saveAndFlush(Mockito.any(Todo.class))).thenReturn(todo);
         Mockito.when(todoMapper.toTodoResponseBody(Mockito.any(Todo.class))).thenReturn(expectedResponse);
 
-        var result = todoService.update(1L, todoRequest);
+        var result = todoService.update(1L, todoRequest, null);
 
-        Mockito.verify(todoRepository).save(Mockito.any(Todo.class));
+        Mockito.verify(todoRepository).saveAndFlush(Mockito.any(Todo.class));
 
         Assertions.assertNotNull(result);
         Assertions.assertInstanceOf(TodoResponseBody.class, result);
@@ -199,16 +326,187 @@ public class TodoServiceTest {
         TodoResponseBody expectedResponse = createTodoResponseBody(updatedTodo);
 
         Mockito.when(todoRepository.findById(1L)).thenReturn(Optional.of(todo));
-        Mockito.when(todoRepository.save(Mockito.any(Todo.class))).thenReturn(updatedTodo);
+        Mockito.when(todoRepository.saveAndFlush(Mockito.any(Todo.class))).thenReturn(updatedTodo);
         Mockito.when(todoMapper.toTodoResponseBody(Mockito.any(Todo.class))).thenReturn(expectedResponse);
 
-        var result = todoService.update(1L, todoRequest);
+        var result = todoService.update(1L, todoRequest, null);
 
-        Mockito.verify(todoRepository).save(Mockito.any(Todo.class));
+        Mockito.verify(todoRepository).saveAndFlush(Mockito.any(Todo.class));
 
         Assertions.assertNotNull(result);
         Assertions.assertInstanceOf(TodoResponseBody.class, result);
 
         Assertions.assertEquals(expectedResponse, result);
     }
+
+    @Test
+    void shouldSaveAllTodosInOneBatch() {
+        User user = createUser();
+        user.setId(1L);
+        Todo todo1 = createTodo(user);
+        Todo todo2 = createSecondaryTodo(user);
+        TodoPostRequestBody request1 = createTodoPostRequestBody(user);
+        TodoPostRequestBody request2 = new TodoPostRequestBody(user.getId(), todo2.getTitle(), todo2.getDescription());
+
+        Mockito.when(userRepository.findAllById(Set.of(1L))).thenReturn(List.of(user));
+        Mockito.when(todoMapper.toTodo(request1, user)).thenReturn(todo1);
+        Mockito.when(todoMapper.toTodo(request2, user)).thenReturn(todo2);
+        Mockito.when(todoRepository.saveAll(List.of(todo1, todo2))).thenReturn(List.of(todo1, todo2));
+        Mockito.when(todoMapper.toTodoResponseBody(Mockito.any(Todo.class)))
+                .thenAnswer(invocation -> createTodoResponseBody(invocation.getArgument(0)));
+
+        var result = todoService.saveAll(List.of(request1, request2));
+
+        Assertions.assertEquals(2, result.size());
+        Mockito.verify(todoRepository).saveAll(List.of(todo1, todo2));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenBatchReferencesUnknownUser() {
+        TodoPostRequestBody todoRequest = new TodoPostRequestBody(1L, "Title", "Description");
+
+        Mockito.when(userRepository.findAllById(Set.of(1L))).thenReturn(List.of());
+
+        Assertions.assertThrows(ResponseStatusException.class, () -> todoService.saveAll(List.of(todoRequest)));
+        Mockito.verify(todoRepository, Mockito.never()).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    void shouldUpdateAllTodos() {
+        User user = createUser();
+        Todo todo = createTodo(user);
+        todo.setId(1L);
+        TodoBatchPutRequestBody.Item todoRequest = new TodoBatchPutRequestBody.Item(1L, "Updated", null,
+                TodoStage.COMPLETED);
+
+        Mockito.when(todoRepository.findAllById(Set.of(1L))).thenReturn(List.of(todo));
+        Mockito.when(todoMapper.toTodoResponseBody(todo)).thenAnswer(invocation -> createTodoResponseBody(todo));
+
+        var result = todoService.updateAll(List.of(todoRequest));
+
+        Assertions.assertEquals("Updated", result.get(0).title());
+        Assertions.assertEquals(TodoStage.COMPLETED, todo.getStage());
+        Assertions.assertNull(todo.getDescription());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenBatchUpdateReferencesUnknownTodo() {
+        TodoBatchPutRequestBody.Item todoRequest = new TodoBatchPutRequestBody.Item(1L, "Updated", null,
+                TodoStage.COMPLETED);
+
+        Mockito.when(todoRepository.findAllById(Set.of(1L))).thenReturn(List.of());
+
+        Assertions.assertThrows(ResponseStatusException.class, () -> todoService.updateAll(List.of(todoRequest)));
+    }
+
+    @Test
+    void shouldRemoveAllTodosInOneStatement() {
+        Cache cache = Mockito.mock(Cache.class);
+        Mockito.when(cacheManager.getCache(TodoService.CACHE_NAME)).thenReturn(cache);
+
+        todoService.removeAll(List.of(1L, 2L));
+
+        Mockito.verify(todoRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        Mockito.verify(cache).evict(1L);
+        Mockito.verify(cache).evict(2L);
+    }
+
+    @Test
+    void shouldRemoveOneChunkOfUserTodos() {
+        Cache cache = Mockito.mock(Cache.class);
+        Mockito.when(cacheManager.getCache(TodoService.CACHE_NAME)).thenReturn(cache);
+        Mockito.when(todoRepository.findIdsByUserId(1L, Limit.of(2))).thenReturn(List.of(3L, 4L));
+
+        Assertions.assertEquals(2, todoService.removeByUserId(1L, 2));
+
+        Mockito.verify(stageCounter).delete(1L);
+        Mockito.verify(todoRepository).deleteAllByIdInBatch(List.of(3L, 4L));
+        Mockito.verify(cache).evict(3L);
+        Mockito.verify(eventPublisher).publishEvent(new TodoChangedEvent(List.of(3L, 4L), Map.of(3L, 1L, 4L, 1L)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldFilterTodosWithSpecificationWhenFiltersAreGiven() {
+        Todo todo = createTodo(createUser());
+        TodoResponseBody response = createTodoResponseBody(todo);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        Mockito.when(todoRepository.findAll(Mockito.any(Specification.class), Mockito.eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(todo), pageable, 1));
+        Mockito.when(todoMapper.toTodoResponseBody(todo)).thenReturn(response);
+
+        var result = todoService.list(List.of(TodoStage.NOT_STARTED), 1L, "Change", pageable);
+
+        Assertions.assertEquals(List.of(response), result.getContent());
+        Mockito.verify(todoRepository, Mockito.never()).findAllResponseBodies(pageable);
+    }
+
+    @Test
+    void shouldUseProjectionWhenNoFiltersAreGiven() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(todoRepository.findAllResponseBodies(pageable)).thenReturn(Page.empty(pageable));
+
+        todoService.list(List.of(), null, " ", pageable);
+
+        Mockito.verify(todoRepository).findAllResponseBodies(pageable);
+    }
+
+    @Test
+    void shouldPatchTodoInOneStatement() {
+        Cache cache = Mockito.mock(Cache.class);
+        Mockito.when(cacheManager.getCache(TodoService.CACHE_NAME)).thenReturn(cache);
+        Mockito.when(todoRepository.patch(1L, "Updated", false, null, null, null)).thenReturn(1);
+
+        todoService.patch(1L, new TodoPatchRequestBody("Updated", null, null), null);
+
+        Mockito.verify(todoRepository, Mockito.never()).findById(Mockito.anyLong());
+        Mockito.verify(cache).evict(1L);
+    }
+
+    @Test
+    void shouldUpdateTodoStageAndMoveItsCount() {
+        User user = createUser();
+        user.setId(1L);
+        Mockito.when(todoRepository.findLockedById(1L)).thenReturn(Optional.of(createTodo(user)));
+        Mockito.when(todoRepository.updateStage(1L, TodoStage.COMPLETED, null)).thenReturn(1);
+
+        todoService.updateStage(1L, TodoStage.COMPLETED, null);
+
+        InOrder inOrder = Mockito.inOrder(stageCounter, todoRepository);
+        inOrder.verify(stageCounter).initialize(1L);
+        inOrder.verify(todoRepository).updateStage(1L, TodoStage.COMPLETED, null);
+        inOrder.verify(stageCounter).move(1L, TodoStage.NOT_STARTED, TodoStage.COMPLETED);
+    }
+
+    @Test
+    void shouldRejectPatchThatChangesNothing() {
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> todoService.patch(1L, new TodoPatchRequestBody(null, null, null), null));
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        Mockito.verifyNoInteractions(todoRepository, eventPublisher);
+    }
+
+    @Test
+    void shouldThrowNotFoundWhenPatchedTodoDoesNotExist() {
+        Mockito.when(todoRepository.patch(1L, "Updated", false, null, null, null)).thenReturn(0);
+
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> todoService.patch(1L, new TodoPatchRequestBody("Updated", null, null), null));
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+
+    @Test
+    void shouldThrowPreconditionFailedWhenPatchedTodoVersionIsStale() {
+        Mockito.when(todoRepository.findLockedById(1L)).thenReturn(Optional.of(createTodo(createUser())));
+        Mockito.when(todoRepository.updateStage(1L, TodoStage.COMPLETED, 1L)).thenReturn(0);
+        Mockito.when(todoRepository.existsById(1L)).thenReturn(true);
+
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> todoService.updateStage(1L, TodoStage.COMPLETED, 1L));
+
+        Assertions.assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatusCode());
+    }
 }
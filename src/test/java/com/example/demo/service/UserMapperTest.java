@@ -32,14 +32,14 @@ public class UserMapperTest {
     void shouldMapUserRequestBodyToUser() {
         UserPostRequestBody requestBody = new UserPostRequestBody("Test User", "test@example.com", "password");
 
-        var result = userMapper.toUser(requestBody);
+        var result = userMapper.toUser(requestBody, "hash");
 
         Assertions.assertNotNull(result);
         Assertions.assertInstanceOf(User.class, result);
 
         Assertions.assertEquals(requestBody.name(), result.getName());
         Assertions.assertEquals(requestBody.email(), result.getEmail());
-        Assertions.assertEquals(requestBody.password(), result.getPassword());
+        Assertions.assertEquals("hash", result.getPassword());
     }
 
     @Test
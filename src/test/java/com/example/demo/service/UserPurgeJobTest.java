@@ -0,0 +1,119 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.domain.User;
+import com.example.demo.dto.UserPurgeResponseBody;
+import com.example.demo.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class UserPurgeJobTest {
+
+    @Mock
+    private TodoService todoService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldDeleteUserWithinRequestWhenTodosFitInOneChunk() {
+        Mockito.when(userRepository.findLockedById(1L)).thenReturn(Optional.of(new User()));
+        Mockito.when(todoService.removeByUserId(1L, 2)).thenReturn(1);
+
+        Assertions.assertTrue(job().purge(1L));
+
+        Mockito.verify(userRepository).deleteUserById(1L);
+    }
+
+    @Test
+    void shouldPurgeRemainingChunksInBackground() {
+        Cache users = Mockito.mock(Cache.class);
+        Mockito.when(cacheManager.getCache(UserService.CACHE_NAME)).thenReturn(users);
+        Mockito.when(userRepository.findLockedById(1L)).thenReturn(Optional.of(new User()));
+        Mockito.when(todoService.removeByUserId(1L, 2)).thenReturn(2, 2, 1);
+        UserPurgeJob job = job();
+
+        Assertions.assertFalse(job.purge(1L));
+
+        Mockito.verify(todoService, Mockito.times(3)).removeByUserId(1L, 2);
+        Mockito.verify(userRepository).deleteUserById(1L);
+        Mockito.verify(users).evict(1L);
+        Assertions.assertEquals(
+                new UserPurgeResponseBody(1L, UserPurgeResponseBody.Status.COMPLETED, 5, null), job.status(1L));
+        Assertions.assertEquals(5, meterRegistry.get("app.users.purge.todos").counter().count());
+    }
+
+    @Test
+    void shouldReportFailedPurge() {
+        Mockito.when(userRepository.findLockedById(1L)).thenReturn(Optional.of(new User()));
+        Mockito.when(todoService.removeByUserId(1L, 2)).thenReturn(2).thenThrow(new IllegalStateException("boom"));
+        UserPurgeJob job = job();
+
+        job.purge(1L);
+
+        UserPurgeResponseBody status = job.status(1L);
+        Assertions.assertEquals(UserPurgeResponseBody.Status.FAILED, status.status());
+        Assertions.assertEquals(2, status.todosDeleted());
+        Assertions.assertEquals(UserPurgeJob.FAILED_MESSAGE, status.error());
+        Mockito.verify(userRepository, Mockito.never()).deleteUserById(1L);
+    }
+
+    @Test
+    void shouldNotStartSecondPurgeWhileOneIsRunning() {
+        Mockito.when(userRepository.findLockedById(1L)).thenReturn(Optional.of(new User()));
+        Mockito.when(todoService.removeByUserId(1L, 2)).thenReturn(2);
+        List<Runnable> started = new ArrayList<>();
+        UserPurgeJob job = new UserPurgeJob(todoService, userRepository, cacheManager, transactionManager,
+                started::add, meterRegistry, 2);
+
+        Assertions.assertFalse(job.purge(1L));
+        Assertions.assertFalse(job.purge(1L));
+
+        Assertions.assertEquals(1, started.size());
+        Mockito.verify(todoService).removeByUserId(1L, 2);
+    }
+
+    @Test
+    void shouldTreatMissingUserAsDeleted() {
+        Mockito.when(userRepository.findLockedById(1L)).thenReturn(Optional.empty());
+        UserPurgeJob job = job();
+
+        Assertions.assertTrue(job.purge(1L));
+
+        Mockito.verifyNoInteractions(todoService);
+        Mockito.verify(userRepository, Mockito.never()).deleteUserById(1L);
+        Assertions.assertThrows(ResponseStatusException.class, () -> job.status(1L));
+    }
+
+    /**
+     * Runs the background purge on the calling thread.
+     */
+    private UserPurgeJob job() {
+        return new UserPurgeJob(todoService, userRepository, cacheManager, transactionManager, Runnable::run,
+                meterRegistry, 2);
+    }
+}
@@ -2,8 +2,11 @@ package com.example.demo.service;
 
 import static com.example.demo.util.UserCreator.*;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,16 +14,25 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.demo.domain.TodoStage;
 import com.example.demo.domain.User;
+import com.example.demo.dto.TodoResponseBody;
+import com.example.demo.dto.TodoStatsResponseBody;
 import com.example.demo.dto.UserPostRequestBody;
 import com.example.demo.dto.UserPutRequestBody;
 import com.example.demo.dto.UserResponseBody;
+import com.example.demo.repository.TodoRepository;
 import com.example.demo.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,6 +44,24 @@ public class UserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private TodoRepository todoRepository;
+
+    @Mock
+    private RowCountCache rowCountCache;
+
+    @Mock
+    private ObjectProvider<EmailBloomFilter> emailFilter;
+
+    @Mock
+    private TodoStageCounter stageCounter;
+
+    @Mock
+    private PasswordHasher passwordHasher;
+
+    @Mock
+    private UserPurgeJob userPurgeJob;
+
     @InjectMocks
     private UserService userService;
 
@@ -73,15 +103,52 @@ public class UserServiceTest {
         Assertions.assertTrue(result.isEmpty());
     }
 
+    @Test
+    void shouldReturnUserSliceWithoutCounting() {
+        User user = createUser();
+        UserResponseBody response = createUserResponseBody(user);
+        Pageable pageable = PageRequest.of(0, 10);
+
+        Mockito.when(userRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(List.of(user), pageable, false));
+        Mockito.when(userMapper.toUserResponseBody(user)).thenReturn(response);
+
+        var result = userService.listSlice(pageable);
+
+        Assertions.assertEquals(List.of(response), result.getContent());
+        Assertions.assertFalse(result.hasNext());
+        Mockito.verify(userRepository, Mockito.never()).count();
+    }
+
+    @Test
+    void shouldReturnCursorPageOfUsers() {
+        User user1 = createUser();
+        User user2 = createSecondaryUser();
+        user1.setId(1L);
+        user2.setId(2L);
+
+        UserResponseBody response1 = createUserResponseBody(user1);
+        UserResponseBody response2 = createUserResponseBody(user2);
+
+        Mockito.when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(user1, user2));
+        Mockito.when(userMapper.toUserResponseBody(user1)).thenReturn(response1);
+        Mockito.when(userMapper.toUserResponseBody(user2)).thenReturn(response2);
+
+        var result = userService.listAfter(null, 2);
+
+        Assertions.assertEquals(List.of(response1, response2), result.content());
+        Assertions.assertNull(result.nextCursor());
+    }
+
     @Test
     void shouldReturnSavedUser() {
         User user = createUser();
         UserResponseBody response = createUserResponseBody(user);
         UserPostRequestBody userRequest = createUserPostRequestBody(user);
 
-        Mockito.when(userRepository.existsByEmail(userRequest.email())).thenReturn(false);
-        Mockito.when(userMapper.toUser(userRequest)).thenReturn(user);
-        Mockito.when(userRepository.save(Mockito.any(User.class))).thenReturn(user);
+        Mockito.when(passwordHasher.hash(userRequest.password())).thenReturn("hash");
+        Mockito.when(userMapper.toUser(userRequest, "hash")).thenReturn(user);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenReturn(user);
         Mockito.when(userMapper.toUserResponseBody(user)).thenReturn(response);
 
         var result = userService.save(userRequest);
@@ -89,7 +156,8 @@ public class UserServiceTest {
         Assertions.assertNotNull(result);
         Assertions.assertInstanceOf(UserResponseBody.class, result);
         Assertions.assertEquals(response, result);
-        Mockito.verify(userRepository).save(Mockito.any(User.class));
+        Mockito.verify(userRepository).saveAndFlush(Mockito.any(User.class));
+        Mockito.verify(userRepository, Mockito.never()).existsByEmail(Mockito.anyString());
     }
 
     @Test
@@ -97,9 +165,58 @@ public class UserServiceTest {
         User user = createUser();
         UserPostRequestBody userRequest = createUserPostRequestBody(user);
 
+        Mockito.when(userMapper.toUser(Mockito.eq(userRequest), Mockito.any())).thenReturn(user);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class)))
+                .thenThrow(violation("users.uk_users_email"));
+
+        ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> userService.save(userRequest));
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        Assertions.assertEquals("Email already exists", exception.getReason());
+    }
+
+    @Test
+    void shouldNotReportOtherIntegrityViolationsAsDuplicateEmail() {
+        User user = createUser();
+        UserPostRequestBody userRequest = createUserPostRequestBody(user);
+
+        Mockito.when(userMapper.toUser(Mockito.eq(userRequest), Mockito.any())).thenReturn(user);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenThrow(violation("users.PRIMARY"));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> userService.save(userRequest));
+    }
+
+    @Test
+    void shouldPreCheckEmailWhenBloomFilterMightContainIt() {
+        User user = createUser();
+        UserPostRequestBody userRequest = createUserPostRequestBody(user);
+        EmailBloomFilter filter = Mockito.mock(EmailBloomFilter.class);
+
+        Mockito.when(emailFilter.getIfAvailable()).thenReturn(filter);
+        Mockito.when(filter.mightContain(userRequest.email())).thenReturn(true);
         Mockito.when(userRepository.existsByEmail(userRequest.email())).thenReturn(true);
 
         Assertions.assertThrows(ResponseStatusException.class, () -> userService.save(userRequest));
+        Mockito.verify(passwordHasher, Mockito.never()).hash(Mockito.anyString());
+        Mockito.verify(userRepository, Mockito.never()).saveAndFlush(Mockito.any(User.class));
+    }
+
+    @Test
+    void shouldSkipPreCheckAndRecordEmailWhenBloomFilterRulesItOut() {
+        User user = createUser();
+        UserPostRequestBody userRequest = createUserPostRequestBody(user);
+        EmailBloomFilter filter = Mockito.mock(EmailBloomFilter.class);
+
+        Mockito.when(emailFilter.getIfAvailable()).thenReturn(filter);
+        Mockito.when(filter.mightContain(userRequest.email())).thenReturn(false);
+        Mockito.when(userMapper.toUser(Mockito.eq(userRequest), Mockito.any())).thenReturn(user);
+        Mockito.when(userRepository.saveAndFlush(user)).thenReturn(user);
+
+        userService.save(userRequest);
+
+        Mockito.verify(userRepository, Mockito.never()).existsByEmail(Mockito.anyString());
+        Mockito.verify(filter).put(user.getEmail());
     }
 
     @Test
@@ -126,8 +243,10 @@ public class UserServiceTest {
 
     @Test
     void shouldRemoveUser() {
-        userService.remove(1L);
-        Mockito.verify(userRepository).deleteById(1L);
+        Mockito.when(userPurgeJob.purge(1L)).thenReturn(true);
+
+        Assertions.assertTrue(userService.remove(1L));
+        Mockito.verify(userPurgeJob).purge(1L);
     }
 
     @Test
@@ -139,12 +258,12 @@ public class UserServiceTest {
         existingUser.setId(1L);
 
         Mockito.when(userRepository.findById(existingUser.getId())).thenReturn(java.util.Optional.of(existingUser));
-        Mockito.when(userRepository.save(Mockito.any(User.class))).thenReturn(existingUser);
+        Mockito.when(userRepository.saveAndFlush(Mockito.any(User.class))).thenReturn(existingUser);
         Mockito.when(userMapper.toUserResponseBody(existingUser)).thenReturn(expectedResponse);
 
-        var result = userService.update(existingUser.getId(), userRequest);
+        var result = userService.update(existingUser.getId(), userRequest, null);
 
-        Mockito.verify(userRepository).save(Mockito.any(User.class));
+        Mockito.verify(userRepository).saveAndFlush(Mockito.any(User.class));
 
         Assertions.assertNotNull(result);
         Assertions.assertInstanceOf(UserResponseBody.class, result);
@@ -158,6 +277,59 @@ public class UserServiceTest {
 
         Mockito.when(userRepository.findById(1L)).thenReturn(java.util.Optional.empty());
 
-        Assertions.assertThrows(ResponseStatusException.class, () -> userService.update(1L, userRequest));
+        Assertions.assertThrows(ResponseStatusException.class, () -> userService.update(1L, userRequest, null));
+    }
+
+    @Test
+    void shouldReturnUserTodosPage() {
+        Pageable pageable = PageRequest.of(0, 10);
+        TodoResponseBody todo = new TodoResponseBody(1L, "Title", "Description", TodoStage.NOT_STARTED, 1L, 0L);
+        Page<TodoResponseBody> page = new PageImpl<>(List.of(todo), pageable, 1);
+
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(todoRepository.findResponseBodiesByUserId(1L, pageable)).thenReturn(page);
+
+        var result = userService.listUserTodos(1L, null, pageable);
+
+        Assertions.assertEquals(page, result);
+    }
+
+    @Test
+    void shouldFilterUserTodosByStage() {
+        Pageable pageable = PageRequest.of(0, 10);
+
+        Mockito.when(userRepository.existsById(1L)).thenReturn(true);
+        Mockito.when(todoRepository.findResponseBodiesByUserIdAndStage(1L, TodoStage.COMPLETED, pageable))
+                .thenReturn(Page.empty());
+
+        var result = userService.listUserTodos(1L, TodoStage.COMPLETED, pageable);
+
+        Assertions.assertTrue(result.isEmpty());
+        Mockito.verify(todoRepository, Mockito.never()).findResponseBodiesByUserId(1L, pageable);
+    }
+
+    @Test
+    void shouldThrowExceptionWhenListingTodosOfUnknownUser() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(userRepository.existsById(1L)).thenReturn(false);
+
+        Assertions.assertThrows(ResponseStatusException.class, () -> userService.listUserTodos(1L, null, pageable));
+    }
+
+    @Test
+    void shouldSumTodoStatsFromStageCounters() {
+        Map<TodoStage, Long> counts = Map.of(TodoStage.NOT_STARTED, 2L, TodoStage.IN_PROGRESS, 1L,
+                TodoStage.COMPLETED, 4L);
+        Mockito.when(stageCounter.counts(1L)).thenReturn(counts);
+
+        TodoStatsResponseBody stats = userService.todoStats(1L);
+
+        Assertions.assertEquals(new TodoStatsResponseBody(1L, counts, 7), stats);
+        Mockito.verifyNoInteractions(todoRepository);
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("Duplicate entry",
+                new ConstraintViolationException("Duplicate entry", new SQLException(), constraintName));
     }
-}
\ No newline at end of file
+}
@@ -28,6 +28,6 @@ public class TodoCreator {
 
     public static TodoResponseBody createTodoResponseBody(Todo todo) {
         return new TodoResponseBody(todo.getId(), todo.getTitle(), todo.getDescription(),
-                todo.getStage().toString(), todo.getUser().getId());
+                todo.getStage().toString(), todo.getUser().getId(), todo.getVersion());
     } 
 }
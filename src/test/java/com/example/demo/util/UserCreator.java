@@ -15,7 +15,7 @@ public class UserCreator {
     }
 
     public static UserResponseBody createUserResponseBody(User user) {
-        return new UserResponseBody(user.getId(), user.getName(), user.getEmail());
+        return new UserResponseBody(user.getId(), user.getName(), user.getEmail(), user.getVersion());
     }
 
     public static UserPostRequestBody createUserPostRequestBody(User user) {